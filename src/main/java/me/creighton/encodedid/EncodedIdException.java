@@ -19,6 +19,26 @@ public class EncodedIdException extends RuntimeException {
     super(message, cause);
   }
 
+  /**
+   * An exception without a stack trace or suppressed exceptions, so it costs nothing to throw
+   * and one instance can be thrown again and again, from any thread.
+   */
+  protected EncodedIdException(String message, boolean stackless) {
+    super(message, null, ! stackless, ! stackless);
+  }
+
+  // Thrown by decoders with stacklessExceptions set, indexed by decode status; see IEncodedId.
+  // They don't repeat the input, which also keeps whatever a client sent out of the logs.
+
+  private static final EncodedIdException [] PREALLOCATED = {
+      null, // DECODED
+      new EncodedIdException("Invalid character for alphabet", true),
+      new EncodedIdException("Misplaced separator in encoding", true),
+      new EncodedIdException("No digits in encoding", true),
+      new EncodedIdException("Invalid check character in encoding", true),
+      new EncodedIdException("Encoding out of range", true)
+  };
+
 
   /**
    * Exception wrappers
@@ -53,6 +73,10 @@ public class EncodedIdException extends RuntimeException {
     throw new EncodedIdException("Invalid padWidth: " + padWidth);
   }
 
+  public static void throwInvalidRangeTableLimit (int rangeTableLimit) throws EncodedIdException {
+    throw new EncodedIdException("Invalid rangeTableLimit: " + rangeTableLimit);
+  }
+
   public static void throwInvalidCharacter (char c) throws EncodedIdException {
     throw new EncodedIdException("Invalid character for alphabet: " + c);
   }
@@ -61,10 +85,26 @@ public class EncodedIdException extends RuntimeException {
     throw new EncodedIdException("segmentLength out of range: " + segmentLength);
   }
 
+  public static void throwInvalidFormatTemplate (String template, String alphabet) throws EncodedIdException {
+    throw new EncodedIdException("Invalid format template: " + template + " for alphabet: " + alphabet);
+  }
+
+  public static void throwMisplacedSeparator (String s) throws EncodedIdException {
+    throw new EncodedIdException("Misplaced separator in encoding: " + s);
+  }
+
   public static void throwInvalidCheckCharacter (String s) throws EncodedIdException {
     throw new EncodedIdException("Invalid check character in encoding: " + s);
   }
 
+  public static void throwOutOfRange (String s) throws EncodedIdException {
+    throw new EncodedIdException("Encoding out of range: " + s);
+  }
+
+  public static void throwPreallocated (int status) throws EncodedIdException {
+    throw PREALLOCATED[status];
+  }
+
   public static void throwInvalidTargetDate (LocalDate date) throws  EncodedIdException {
     throw new EncodedIdException("Invalid target date for validity check: " + date);
   }
@@ -55,6 +55,17 @@ public final class EncodingConstants {
     public static final String BASE_BIG_CHARACTER_SET = LOWER_CASE + UPPER_CASE + NUMBERS + SPECIAL_CHARACTERS;
     public static final String BIG_ALPHABET = "TVWboQg4pGnE9w0rhSqFLKmdxZceNk5RBtUDf3iPvMX12OAslIu6yJCa8HYz7j.!;_:&$'()*="; // scrambled LEGAL_URI_ALPHABET
 
+    // Alphabets whose length is a power of two are encoded and decoded with shifts and masks
+    // rather than division. Both of these are safe in a URL path. The 32 character set is
+    // Crockford's, which leaves out I, L, O and U so people don't confuse them with 1, 0 and V.
+    // The 64 character set is the URL-safe Base64 set with '.' in place of '-', which is
+    // reserved as the default separator.
+
+    public static final String URL_SAFE_32_CHARACTER_SET = NUMBERS + "ABCDEFGHJKMNPQRSTVWXYZ";
+    public static final String URL_SAFE_32_ALPHABET = "PVMZD0G7F8B41YTQ63ERHXA2SKJ5CN9W";
+    public static final String URL_SAFE_64_CHARACTER_SET = UPPER_CASE + LOWER_CASE + NUMBERS + "._";
+    public static final String URL_SAFE_64_ALPHABET = "pEf1la8RckdLJGuetr40KOHxFmgDPIW_2QyA7S.MUB5ZzjiT3wVhnNsv6X9CqYbo";
+
     /** Reserved characters **/
     public static final char NEGATIVE_SIGN = '~';
     public static final char DEFAULT_SEPARATOR = '-';
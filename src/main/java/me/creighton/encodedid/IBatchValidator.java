@@ -0,0 +1,20 @@
+package me.creighton.encodedid;
+
+import me.creighton.encodedid.impl.BatchValidator;
+
+import java.util.BitSet;
+
+/*
+  Checks many encoded ids at once against the alphabet, separators and check character of
+  an encoder's settings, without decoding them. An id is valid if any encoder built from the
+  same settings would decode it; overflow is not checked, since that depends on the encoder.
+  Validators are immutable and can be shared.
+ */
+public interface IBatchValidator {
+  BitSet validateAll (CharSequence [] ids);  // Returns the indexes of invalid ids.
+  boolean isVectorized ();  // Indicates if the jdk.incubator.vector module is in use.
+
+  static IBatchValidator build (IEncodedId.Builder builder) throws EncodedIdException {
+    return BatchValidator.build(builder);
+  }
+}
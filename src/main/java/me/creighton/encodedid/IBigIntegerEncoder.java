@@ -8,6 +8,9 @@ public interface IBigIntegerEncoder extends IEncodedId {
   String encodeId (BigInteger id) throws EncodedIdException;
   String encodeIdWithoutSeparator (BigInteger id) throws EncodedIdException;
   BigInteger decodeId (String encodedId) throws EncodedIdException;
+  BigInteger decodeId (CharSequence src, int start, int end) throws EncodedIdException; // Decodes src[start, end) in place.
+  boolean parallelConversion(); // Indicates if very large values are converted on the fork/join common pool.
+  void parallelConversion(boolean parallelConversion);
 
   static IBigIntegerEncoder build (IEncodedId.Builder builder) {
     return new BigIntegerEncoder(builder);
@@ -0,0 +1,22 @@
+package me.creighton.encodedid;
+
+import me.creighton.encodedid.impl.CodecCache;
+
+/*
+  A bounded cache of compiled encoders, keyed by every setting of the builder they are built
+  from, so that many tenants, each with its own alphabet, don't rebuild an encoder per request.
+  Cached encoders are immutable and can be shared; see IEncodedId.Builder.compileLongEncoder.
+ */
+public interface ICodecCache {
+  ILongEncoder longEncoder (IEncodedId.Builder builder) throws EncodedIdException; // Cached, or compiled and cached.
+  IUuidEncoder uuidEncoder (IEncodedId.Builder builder) throws EncodedIdException;
+  long hits ();
+  long misses ();
+  long evictions ();
+  int size ();      // Encoders cached now.
+  int maxSize ();   // The least recently used encoder is evicted beyond this.
+
+  static ICodecCache build (int maxSize) {
+    return new CodecCache(maxSize);
+  }
+}
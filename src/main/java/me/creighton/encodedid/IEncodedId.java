@@ -14,6 +14,14 @@ public interface IEncodedId {
   int DEFAULT_PAD_LENGTH = 7; // By default we show XXXX-YYY
   int MAX_PAD_LENGTH = 30;  // max number of encoded characters to pad with 0.
 
+  // Decode status: what ILongEncoder.tryDecodeId returns instead of throwing.
+  int DECODED = 0;
+  int INVALID_CHARACTER = 1;
+  int MISPLACED_SEPARATOR = 2;
+  int NO_DIGITS = 3;  // Nothing but a sign, separators or a check character.
+  int INVALID_CHECK_CHARACTER = 4;
+  int OUT_OF_RANGE = 5;  // More than fits in a long, or too long to be worth reading.
+
   // Attribute getters/setters
   char separator();
   void separator(char separator);
@@ -22,12 +30,20 @@ public interface IEncodedId {
   String characterSet ();
   boolean useSeparator();
   void useSeparator(boolean useSeparator);
+  boolean strictSeparators(); // Indicates if decoding requires separators exactly where encoding puts them.
+  void strictSeparators(boolean strictSeparators);
   int padWidth();
   void padWidth(int padWidth) throws EncodedIdException;
   int segmentLength();
   void segmentLength(int segmentLength) throws EncodedIdException;
+  String formatTemplate(); // A layout like "XXX-XXXX", grouped from the right, used instead of segmentLength; or null.
+  void formatTemplate(String formatTemplate) throws EncodedIdException;
+  boolean tolerantDecoding(); // Indicates if decoding folds case, reads look-alikes as the character meant and skips blanks and dashes.
+  void tolerantDecoding(boolean tolerantDecoding);
   boolean checkedEncoder(); // Indicates if this instance of IEncodedId requires check characters.
   void checkedEncoder(boolean checkedEncoder);
+  boolean stacklessExceptions(); // Indicates if decoding throws preallocated exceptions without stack traces.
+  void stacklessExceptions(boolean stacklessExceptions);
   long getMinId ();
   long getMaxId ();
   IEncodedId setMinId (long minId);
@@ -64,18 +80,42 @@ public interface IEncodedId {
     String getCharacterSet();
     Builder checkedEncoder(boolean checkedEncoder);
     boolean isCheckedEncoder();
+    Builder stacklessExceptions(boolean stacklessExceptions);
+    boolean isStacklessExceptions();
     Builder padWidth(int padWidth);
     int getPadWidth();
     Builder separator(char separator);
     char getSeparator();
     Builder separator(boolean separator);
     boolean useSeparator();
+    Builder strictSeparators(boolean strictSeparators);
+    boolean isStrictSeparators();
     Builder segmentLength(int segmentLength);
     int getSegmentLength();
+    Builder formatTemplate(String formatTemplate);  // Separators go where the template puts them, e.g. "XXX-XXXX".
+    String getFormatTemplate();
+    Builder tolerantDecoding(boolean tolerantDecoding);  // Accept ids as people type them, e.g. "pd-g m4" for "PDGM4".
+    boolean isTolerantDecoding();
     long getMinId ();
     Builder setMinId (long minId);
     long getMaxId ();
     Builder setMaxId (long maxId);
+    Builder fixedWidth (boolean fixedWidth);  // UUID encoders only
+    boolean isFixedWidth ();
+    Builder specialized (boolean specialized);  // Compiled long encoders run code generated for their settings.
+    boolean isSpecialized ();
+    Builder twoDigitTables (boolean twoDigitTables);  // Long encoders convert two digits per step.
+    boolean isTwoDigitTables ();
+    Builder unsigned (boolean unsigned);  // Long encoders treat ids as unsigned 64-bit values.
+    boolean isUnsigned ();
+    Builder rangeTableLimit (int rangeTableLimit);  // Long encoders precompute minId to maxId if it holds fewer ids; 0 for never.
+    int getRangeTableLimit ();
+    Builder vectorValidation (boolean vectorValidation);  // Batch validators use the incubating Vector API if it is there.
+    boolean isVectorValidation ();
+
+    // Immutable encoders that are safe to share between threads.
+    ILongEncoder compileLongEncoder () throws EncodedIdException;
+    IUuidEncoder compileUuidEncoder () throws EncodedIdException;
   }
 
 
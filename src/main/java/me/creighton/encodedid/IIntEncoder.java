@@ -0,0 +1,24 @@
+package me.creighton.encodedid;
+
+import me.creighton.encodedid.impl.IntEncoder;
+
+import java.nio.ByteBuffer;
+import java.util.OptionalInt;
+
+public interface IIntEncoder extends IEncodedId {
+  String encodeId () throws EncodedIdException;       // Selects a random int between minId and maxId, inclusive.
+  String encodeId (int id) throws EncodedIdException;  // The same encoding ILongEncoder gives the same value.
+  String encodeIdWithoutSeparator (int id) throws EncodedIdException;
+  int decodeId (String encodedId) throws EncodedIdException;
+  int decodeId (CharSequence src, int start, int end) throws EncodedIdException; // Decodes src[start, end) in place.
+  int decodeId (ByteBuffer src) throws EncodedIdException;  // Decodes the remaining bytes and moves position to limit.
+  int tryDecodeId (CharSequence src, int start, int end, int [] out, int index); // Returns a decode status; out[index] is set if DECODED.
+  OptionalInt tryDecodeId (CharSequence src); // Empty if src is null or not a valid encoding of an int.
+  int encodeTo (int id, byte [] dst, int off) throws EncodedIdException; // Returns the number of bytes written.
+  int encodeTo (int id, ByteBuffer dst) throws EncodedIdException;   // Writes at position and moves it past the encoding.
+  int maxEncodedLength (); // The longest encoding of an int, for sizing buffers.
+
+  static IIntEncoder build (IEncodedId.Builder builder) {
+    return new IntEncoder(builder);
+  }
+}
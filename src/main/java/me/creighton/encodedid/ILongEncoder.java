@@ -2,11 +2,31 @@ package me.creighton.encodedid;
 
 import me.creighton.encodedid.impl.LongEncoder;
 
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.OptionalLong;
+
 public interface ILongEncoder extends  IEncodedId {
   String encodeId () throws EncodedIdException;       // Selects a random number between minId and maxId, inclusive.
   String encodeId (long id) throws EncodedIdException;
   String encodeIdWithoutSeparator (long id) throws EncodedIdException;
   long decodeId (String encodedId) throws EncodedIdException;
+  long decodeId (CharSequence src, int start, int end) throws EncodedIdException; // Decodes src[start, end) in place.
+  long decodeId (ByteBuffer src) throws EncodedIdException;  // Decodes the remaining bytes and moves position to limit.
+  int tryDecodeId (CharSequence src, int start, int end, long [] out, int index); // Returns a decode status; out[index] is set if DECODED.
+  OptionalLong tryDecodeId (CharSequence src); // Empty if src is null or not a valid encoding.
+  int encodeTo (long id, byte [] dst, int off) throws EncodedIdException; // Returns the number of bytes written.
+  int encodeTo (long id, ByteBuffer dst) throws EncodedIdException;   // Writes at position and moves it past the encoding.
+  int maxEncodedLength (); // The longest encoding, for sizing buffers.
+  void encodeAll (long [] ids, String [] out) throws EncodedIdException;  // out[i] is the encoding of ids[i].
+  BitSet decodeAll (String [] in, long [] out); // Returns the indexes of invalid entries, which decode as 0.
+  boolean twoDigitTables (); // Indicates if encode and decode go two digits at a time through lookup tables.
+  void twoDigitTables (boolean twoDigitTables);
+  boolean unsigned (); // Indicates if ids are unsigned 64-bit values, with no sign, like Long.toUnsignedString.
+  void unsigned (boolean unsigned);
+  int rangeTableLimit (); // Encodings of minId to maxId are precomputed if it holds fewer ids than this; 0 for never.
+  void rangeTableLimit (int rangeTableLimit);
+  long rangeTableBytes (); // The memory the precomputed encodings take, or 0 if there are none yet.
 
   static ILongEncoder build (IEncodedId.Builder builder) {
     return new LongEncoder(builder);
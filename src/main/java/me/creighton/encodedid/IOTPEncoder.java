@@ -13,6 +13,8 @@ public interface IOTPEncoder {
 
   long getMaxOtpId();
 
+  long getRangeTableBytes();  // The memory precomputed OTPs take, or 0 if there are none.
+
   String encode();
 
   String encode(long id);
@@ -44,6 +46,10 @@ public interface IOTPEncoder {
 
     IOTPEncoderBuilder withLimits(long minId, long maxId);
 
+    int getRangeTableLimit();
+
+    IOTPEncoderBuilder withRangeTableLimit(int limit);  // Precompute every OTP if there are fewer than limit.
+
     IOTPEncoder build();
 
   }
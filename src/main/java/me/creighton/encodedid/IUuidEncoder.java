@@ -3,12 +3,20 @@ package me.creighton.encodedid;
 
 import me.creighton.encodedid.impl.UuidEncoder;
 
+import java.nio.ByteBuffer;
 import java.util.UUID;
 
 public interface IUuidEncoder extends IEncodedId {
   String encodeId (UUID id) throws EncodedIdException;
   String encodeIdWithoutSeparator (UUID id) throws EncodedIdException;
   UUID decodeId (String encodedId) throws EncodedIdException;
+  UUID decodeId (CharSequence src, int start, int end) throws EncodedIdException; // Decodes src[start, end) in place.
+  UUID decodeId (ByteBuffer src) throws EncodedIdException;  // Decodes the remaining bytes and moves position to limit.
+  int encodeTo (UUID id, byte [] dst, int off) throws EncodedIdException; // Returns the number of bytes written.
+  int encodeTo (UUID id, ByteBuffer dst) throws EncodedIdException;   // Writes at position and moves it past the encoding.
+  int maxEncodedLength (); // The longest encoding, for sizing buffers.
+  boolean fixedWidth(); // Indicates if every UUID encodes to the same number of digits.
+  void fixedWidth(boolean fixedWidth);
 
   static IUuidEncoder build (IEncodedId.Builder builder) {
     return new UuidEncoder(builder);
@@ -67,8 +67,7 @@ public class Utilities {
     if (null == characterSet) {
       characterSet = "";
     }
-    return stringToCharacterSet(characterSet).containsAll
-            (stringToCharacterSet(alphabet));
+    return containsAllCharacters(characterSet, alphabet);
   }
 
   public static boolean isValidUriAlphabet (String alphabet) {
@@ -78,8 +77,23 @@ public class Utilities {
       alphabet = "";
     }
 
-    return stringToCharacterSet(LEGAL_URI_CHARACTER_SET).containsAll
-          (stringToCharacterSet(alphabet));
+    return containsAllCharacters(LEGAL_URI_CHARACTER_SET, alphabet);
+  }
+
+  // Same answer as stringToCharacterSet(set).containsAll(stringToCharacterSet(s)), but with
+  // a BitSet over char values, so nothing is boxed when thousands of alphabets are checked.
+  private static boolean containsAllCharacters (String set, String s) {
+    BitSet members = new BitSet();
+
+    for (int i = 0; i < set.length(); i++) {
+      members.set(set.charAt(i));
+    }
+    for (int i = 0; i < s.length(); i++) {
+      if (! members.get(s.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
   }
 
   // Convenience method to let you easily scramble a character string for a new alphabet.
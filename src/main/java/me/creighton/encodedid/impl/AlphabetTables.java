@@ -0,0 +1,317 @@
+package me.creighton.encodedid.impl;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static me.creighton.encodedid.impl.EncodedId.IGNORABLE;
+import static me.creighton.encodedid.impl.EncodedId.NOT_IN_ALPHABET;
+
+/*
+
+  Everything an encoder derives from its alphabet, built once and never changed.
+  Since nothing here depends on the rest of the configuration, encoders with
+  the same alphabet can share one instance; see CodecCache.
+
+ */
+final class AlphabetTables {
+
+  static final long OVERFLOW = -1L;  // a magnitude over the limit; see Limits.fold
+
+  // Characters that look alike, in pairs. Tolerant decoding reads either as the other if only
+  // the other is in the alphabet.
+  static final String [] LOOK_ALIKES = {"O0", "I1", "L1", "Z2", "S5", "B8", "UV"};
+
+  // What tolerant decoding skips, unless it is in the alphabet: blanks and dashes.
+  static final String IGNORABLES = " \t\r\n-\u00a0\u00ad";
+
+  final String alphabet;
+  final int numberBase;
+  final int [] decodeTable;       // Reverse of alphabet: decodeTable[c] is the value of c.
+  final byte [] encodeTable;      // Latin-1 bytes of alphabet: encodeTable[v] is the character for v.
+  final long [] powers;           // powers[k] is numberBase^k, as far as it fits in 64 unsigned bits.
+  final byte [] digitsByBitLength; // digits needed by the smallest value of each bit length.
+  final int maxLongDigits;        // the most digits a long can need: those of 2^63, the magnitude of Long.MIN_VALUE.
+  final int maxIntDigits;         // the most digits an int can need: those of 2^31.
+  final int maxUuidDigits;        // the most digits a UUID can need: those of 2^128 - 1.
+  final Limits signedLimits;      // for magnitudes up to 2^63...
+  final Limits unsignedLimits;    // ...for unsigned values, up to 2^64 - 1...
+  final Limits intLimits;         // ...and for the magnitude of an int, up to 2^31.
+  final int digitShift;           // log2(numberBase) if that is a whole number, otherwise 0.
+  final int chunkDigits;          // the most digits whose value always fits in an int...
+  final int chunkPower;           // ...and numberBase^chunkDigits.
+  final int [] luhnDoubled;       // luhnDoubled[v] is the Luhn addend of v with factor 2.
+  final char lowest;              // the smallest character in the alphabet...
+  final boolean ascii;            // ...and whether every character is ASCII, so AsciiWords applies.
+  final long atLeastLowest;       // AsciiWords addends for the range [lowest, largest character].
+  final long aboveHighest;
+  private volatile TwoDigitTables twoDigitTables;  // built when an encoder first asks for them
+  private volatile int [] tolerantDecodeTable;     // likewise
+
+  AlphabetTables (String alphabet) {
+    int base = alphabet.length();  // String.length() returns int, so we can depend on it being <= Integer.MAX_VALUE.
+    int chunk = 1;
+
+    this.alphabet = alphabet;
+    this.numberBase = base;
+    this.decodeTable = buildDecodeTable(alphabet);
+    this.encodeTable = alphabet.getBytes(StandardCharsets.ISO_8859_1);
+    this.powers = buildPowers(base);
+    this.digitsByBitLength = buildDigitsByBitLength(this.powers);
+    this.maxLongDigits = this.digitsByBitLength[Long.SIZE];
+    this.maxIntDigits = this.digitsByBitLength[Integer.SIZE];
+    this.maxUuidDigits = countDigits(BigInteger.ONE.shiftLeft(2 * Long.SIZE).subtract(BigInteger.ONE), base);
+    this.signedLimits = new Limits(this.powers, Long.MIN_VALUE);
+    this.unsignedLimits = new Limits(this.powers, -1L);
+    this.intLimits = new Limits(this.powers, 1L << 31);
+    this.digitShift = (Integer.bitCount(base) == 1) ? Integer.numberOfTrailingZeros(base) : 0;
+    while (this.powers[chunk + 1] <= Integer.MAX_VALUE) {
+      chunk++;
+    }
+    this.chunkDigits = chunk;
+    this.chunkPower = (int) this.powers[chunk];
+    this.luhnDoubled = buildLuhnTable(base);
+
+    char low = Character.MAX_VALUE;
+    for (int i = 0; i < base; i++) {
+      low = (char) Math.min(low, alphabet.charAt(i));
+    }
+    this.lowest = low;
+    this.ascii = this.decodeTable.length <= 0x80;
+    this.atLeastLowest = AsciiWords.atLeastAddend(low);
+    this.aboveHighest = AsciiWords.aboveAddend(this.decodeTable.length - 1);
+  }
+
+  /**
+   * How far a magnitude, an unsigned long, can grow before it is more than a given largest value.
+   * foldLimits[k] is the largest magnitude k more digits fit on, so foldLimits[maxDigits - 1] is
+   * the largest leading digit of a value with maxDigits digits.
+   */
+  static final class Limits {
+    final long [] powers;
+    final long [] foldLimits;       // foldLimits[k] is largest / numberBase^k...
+    final long [] foldRemainders;   // ...and foldRemainders[k] the most k digits can add to it.
+
+    Limits (long [] powers, long largest) {
+      this.powers = powers;
+      this.foldLimits = new long[powers.length];
+      this.foldRemainders = new long[powers.length];
+      for (int k = 0; k < powers.length; k++) {
+        this.foldLimits[k] = Long.divideUnsigned(largest, powers[k]);
+        this.foldRemainders[k] = Long.remainderUnsigned(largest, powers[k]);
+      }
+    }
+
+    /**
+     * magnitude * numberBase^k + digits, where digits is the value of k more digits, or OVERFLOW
+     * if that is more than the largest value. OVERFLOW is more than any limit, so once a magnitude
+     * overflows it stays that way. With the unsigned limits, OVERFLOW is also 2^64 - 1, and the
+     * caller has to tell them apart.
+     */
+    long fold (long magnitude, int k, int digits) {
+      long limit = this.foldLimits[k];
+
+      if (Long.compareUnsigned(magnitude, limit) < 0
+          || (magnitude == limit && digits <= this.foldRemainders[k])) {
+        return magnitude * this.powers[k] + digits;
+      }
+      return OVERFLOW;
+    }
+  }
+
+  /**
+   * decodeTable, with what tolerant decoding accepts besides: see buildTolerantDecodeTable.
+   * Two threads may both build it, which is harmless.
+   */
+  int [] tolerantDecodeTable () {
+    int [] t = this.tolerantDecodeTable;
+
+    if (null == t) {
+      t = buildTolerantDecodeTable(this.alphabet, this.decodeTable);
+      this.tolerantDecodeTable = t;
+    }
+    return t;
+  }
+
+  /**
+   * The tables for converting two digits at a time. They run to tens of kilobytes for the
+   * bigger alphabets, so they are only built once an encoder uses them. Two threads may
+   * both build them, which is harmless.
+   */
+  TwoDigitTables twoDigitTables () {
+    TwoDigitTables t = this.twoDigitTables;
+
+    if (null == t) {
+      t = new TwoDigitTables(this);
+      this.twoDigitTables = t;
+    }
+    return t;
+  }
+
+  /**
+   * A pair of digits (a, b), a the more significant, has the value p = a * numberBase + b.
+   */
+  static final class TwoDigitTables {
+    final int pairBase;         // numberBase^2
+    final byte [] characters;   // characters[2p] and characters[2p + 1] are the characters of a and b.
+    final int [] luhn;          // luhn[p] is the Luhn sum of the pair with factor 2 on b...
+    final int [] otherLuhn;     // ...and otherLuhn[p] with factor 2 on a.
+    final int width;            // one more than the largest character in the alphabet
+    final int [] values;        // values[c * width + d] is p for characters c and d, or NOT_IN_ALPHABET.
+    final int chunkDigits;      // the most digits, in whole pairs, whose value always fits in an int...
+    final int chunkPower;       // ...and numberBase^chunkDigits.
+
+    TwoDigitTables (AlphabetTables tables) {
+      int base = tables.numberBase;
+      int [] doubled = tables.luhnDoubled;
+
+      this.pairBase = base * base;
+      this.characters = new byte[2 * this.pairBase];
+      this.luhn = new int[this.pairBase];
+      this.otherLuhn = new int[this.pairBase];
+      for (int a = 0; a < base; a++) {
+        for (int b = 0; b < base; b++) {
+          int p = a * base + b;
+
+          this.characters[2 * p] = tables.encodeTable[a];
+          this.characters[2 * p + 1] = tables.encodeTable[b];
+          this.luhn[p] = a + doubled[b];
+          this.otherLuhn[p] = doubled[a] + b;
+        }
+      }
+
+      int [] decode = tables.decodeTable;
+      this.width = decode.length;
+      this.values = new int[this.width * this.width];
+      for (int c = 0; c < this.width; c++) {
+        for (int d = 0; d < this.width; d++) {
+          boolean valid = decode[c] != NOT_IN_ALPHABET && decode[d] != NOT_IN_ALPHABET;
+          this.values[c * this.width + d] = valid ? decode[c] * base + decode[d] : NOT_IN_ALPHABET;
+        }
+      }
+
+      this.chunkDigits = tables.chunkDigits & ~1;  // at least 2, since base^3 fits in an int
+      this.chunkPower = (int) tables.powers[this.chunkDigits];
+    }
+  }
+
+  /**
+   * Builds the reverse lookup table for an alphabet. The table is indexed by character and
+   * holds the position of that character in the alphabet, or NOT_IN_ALPHABET. It is only as
+   * long as the largest character in the alphabet, so every alphabet in EncodingConstants
+   * needs no more than 128 entries. If a character is repeated, the first position wins,
+   * which matches the String.indexOf behavior this replaces.
+   */
+  static int [] buildDecodeTable (String alphabet) {
+    int max = -1;
+
+    for (int i = 0; i < alphabet.length(); i++) {
+      max = Math.max(max, alphabet.charAt(i));
+    }
+
+    int [] table = new int[max + 1];
+    Arrays.fill(table, NOT_IN_ALPHABET);
+
+    for (int i = alphabet.length() - 1; i >= 0; i--) {
+      table[alphabet.charAt(i)] = i;
+    }
+    return table;
+  }
+
+  /**
+   * Builds the reverse lookup table for tolerant decoding, indexed by Latin-1 character. On top
+   * of decode, which it never changes, a character not in the alphabet gets the value of
+   * <ul>
+   *   <li>the same letter in the other case, if that is in the alphabet, or else</li>
+   *   <li>its look-alike in LOOK_ALIKES, in either case, if that is in the alphabet,</li>
+   * </ul>
+   * and the IGNORABLES get IGNORABLE. So "i" reads as "1" in the default alphabet, which has
+   * no I, and "o" as "0" in the Crockford one. What is left is NOT_IN_ALPHABET as before.
+   */
+  static int [] buildTolerantDecodeTable (String alphabet, int [] decode) {
+    int [] table = new int[Math.max(decode.length, 0x100)];
+
+    Arrays.fill(table, NOT_IN_ALPHABET);
+    System.arraycopy(decode, 0, table, 0, decode.length);
+
+    for (int i = 0; i < alphabet.length(); i++) {
+      addIfFree(table, otherCase(alphabet.charAt(i)), decode[alphabet.charAt(i)]);
+    }
+    for (String pair : LOOK_ALIKES) {
+      for (int k = 0; k < 2; k++) {
+        char from = pair.charAt(k);
+        char to = pair.charAt(1 - k);
+        int value = (to < decode.length) ? decode[to] : NOT_IN_ALPHABET;
+
+        if (NOT_IN_ALPHABET != value) {
+          addIfFree(table, from, value);
+          addIfFree(table, otherCase(from), value);
+        }
+      }
+    }
+    for (int i = 0; i < IGNORABLES.length(); i++) {
+      addIfFree(table, IGNORABLES.charAt(i), IGNORABLE);
+    }
+    return table;
+  }
+
+  private static void addIfFree (int [] table, char c, int value) {
+    if (c < table.length && NOT_IN_ALPHABET == table[c]) {
+      table[c] = value;
+    }
+  }
+
+  private static char otherCase (char c) {
+    return Character.isUpperCase(c) ? Character.toLowerCase(c) : Character.toUpperCase(c);
+  }
+
+  private static int countDigits (BigInteger value, int base) {
+    BigInteger bigBase = BigInteger.valueOf(base);
+    int count = 0;
+
+    while (value.signum() > 0) {
+      value = value.divide(bigBase);
+      count++;
+    }
+    return count;
+  }
+
+  private static byte [] buildDigitsByBitLength (long [] powers) {
+    byte [] table = new byte[Long.SIZE + 1];
+
+    table[0] = 1;   // zero
+    for (int bits = 1; bits <= Long.SIZE; bits++) {
+      long smallest = 1L << (bits - 1);
+      int count = 1;
+
+      while (count < powers.length && Long.compareUnsigned(smallest, powers[count]) >= 0) {
+        count++;
+      }
+      table[bits] = (byte) count;
+    }
+    return table;
+  }
+
+  private static long [] buildPowers (int base) {
+    long [] p = new long[Long.SIZE + 1];  // base 2 is the worst case.
+    long limit = Long.divideUnsigned(-1L, base);
+    int count = 1;
+
+    p[0] = 1;
+    while (Long.compareUnsigned(p[count - 1], limit) <= 0) {
+      p[count] = p[count - 1] * base;
+      count++;
+    }
+    return Arrays.copyOf(p, count);
+  }
+
+  private static int [] buildLuhnTable (int n) {
+    int [] table = new int[n];
+
+    for (int codePoint = 0; codePoint < n; codePoint++) {
+      int addend = codePoint << 1;
+      table[codePoint] = addend >= n ? addend - n + 1 : addend;
+    }
+    return table;
+  }
+}
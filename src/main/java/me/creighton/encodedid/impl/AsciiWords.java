@@ -0,0 +1,91 @@
+package me.creighton.encodedid.impl;
+
+/*
+
+  SWAR (SIMD within a register) tests on ASCII text packed eight characters to a
+  long, one per byte, the first character in the low byte. Each test looks at all
+  eight bytes with a few arithmetic operations and no branches. A byte's high bit
+  is kept free for the result, which is why only ASCII is packed as itself: any
+  other character is packed as 0x80.
+
+  See Hacker's Delight, chapter 6, for the byte tests.
+
+ */
+final class AsciiWords {
+
+  static final long ONES = 0x0101010101010101L;
+  static final long HIGH_BITS = 0x8080808080808080L;
+  static final long LOW_BITS = 0x7f7f7f7f7f7f7f7fL;
+
+  private AsciiWords () {
+  }
+
+  /**
+   * Every byte of the word set to b.
+   */
+  static long broadcast (int b) {
+    return (b & 0xffL) * ONES;
+  }
+
+  /**
+   * Packs src[from, to), at most eight characters, into a word. Bytes past the
+   * last character are filled with pad, a character the caller accepts.
+   */
+  static long load (CharSequence src, int from, int to, int pad) {
+    int n = to - from;
+
+    if (n == Long.BYTES && src instanceof Latin1Bytes) {
+      return ((Latin1Bytes) src).word(from);   // bytes above 0x7f keep their high bit
+    }
+
+    long word = (n < Long.BYTES) ? broadcast(pad) << (n << 3) : 0;
+
+    for (int k = 0; k < n; k++) {
+      word |= (long) Math.min(src.charAt(from + k), 0x80) << (k << 3);
+    }
+    return word;
+  }
+
+  /**
+   * The addend that sets the high bit of a 7-bit byte if it is at least low.
+   */
+  static long atLeastAddend (int low) {
+    return broadcast(0x80 - low);
+  }
+
+  /**
+   * The addend that sets the high bit of a 7-bit byte if it is more than high.
+   */
+  static long aboveAddend (int high) {
+    return broadcast(0x7f - high);
+  }
+
+  /**
+   * Indicates if any byte of word is not ASCII or is outside the range the addends
+   * were made for.
+   */
+  static boolean anyOutside (long word, long atLeastAddend, long aboveAddend) {
+    long ascii = word & LOW_BITS;
+    long atLeast = (ascii + atLeastAddend) & HIGH_BITS;
+    long above = (ascii + aboveAddend) & HIGH_BITS;
+
+    return ((word & HIGH_BITS) | above | (atLeast ^ HIGH_BITS)) != 0;
+  }
+
+  /**
+   * Indicates if any byte of word is equal to the byte of pattern, a broadcast value.
+   */
+  static boolean anyEqual (long word, long pattern) {
+    long y = word ^ pattern;
+
+    // The high bit of each byte ends up set if and only if the byte of y is not zero.
+    return ((((y & LOW_BITS) + LOW_BITS) | y) & HIGH_BITS) != HIGH_BITS;
+  }
+
+  /**
+   * The byte of word at index k, counting from the first character.
+   */
+  static int byteAt (long word, int k) {
+    return (int) (word >>> (k << 3)) & 0xff;
+  }
+}
@@ -0,0 +1,166 @@
+package me.creighton.encodedid.impl;
+
+import me.creighton.encodedid.EncodedIdException;
+import me.creighton.encodedid.IBatchValidator;
+import me.creighton.encodedid.IEncodedId;
+
+import java.util.BitSet;
+
+import static me.creighton.encodedid.EncodingConstants.NEGATIVE_SIGN;
+import static me.creighton.encodedid.impl.EncodedId.IGNORABLE;
+import static me.creighton.encodedid.impl.EncodedId.NOT_IN_ALPHABET;
+
+/*
+
+  The scalar IBatchValidator, which checks one id after another by the same rules
+  as EncodedId.scanDigits. It is the default, and the fallback for VectorBatchValidator.
+  That one is only used if the builder asks for vectorValidation, the jar was built
+  with the vector profile (mvn -Pvector) and the JVM runs with --add-modules
+  jdk.incubator.vector. It has measured slower than this one on ids of ordinary
+  length, so it stays opt-in.
+
+ */
+public class BatchValidator implements IBatchValidator {
+
+  private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+  protected final AlphabetTables tables;
+  protected final int [] decode;            // tables.decodeTable, or its tolerant version
+  protected final boolean skipSeparators;
+  protected final boolean strict;
+  protected final char separator;
+  protected final int segment;
+  protected final FormatTemplate template;  // null unless separators follow one
+  protected final boolean checked;
+
+  public BatchValidator (IEncodedId.Builder builder) throws EncodedIdException {
+    this(new EncodedId(builder) {});  // validates the alphabet and settings, as an encoder would
+  }
+
+  private BatchValidator (EncodedId settings) {
+    this.tables = settings.tables();
+    this.decode = settings.decodeTable();
+    this.skipSeparators = settings.useSeparator();
+    this.template = this.skipSeparators ? settings.template() : null;
+    this.strict = this.skipSeparators && settings.strictSeparators() && null == this.template;
+    this.separator = settings.separator();
+    this.segment = settings.segmentLength();
+    this.checked = settings.checkedEncoder();
+  }
+
+  protected BatchValidator (BatchValidator settings) {
+    this.tables = settings.tables;
+    this.decode = settings.decode;
+    this.skipSeparators = settings.skipSeparators;
+    this.strict = settings.strict;
+    this.separator = settings.separator;
+    this.segment = settings.segment;
+    this.template = settings.template;
+    this.checked = settings.checked;
+  }
+
+  /**
+   * The vectorized validator if the builder asks for it, the module is there and its classes
+   * load, otherwise the scalar one.
+   */
+  public static IBatchValidator build (IEncodedId.Builder builder) throws EncodedIdException {
+    BatchValidator scalar = new BatchValidator(builder);
+
+    if (builder.isVectorValidation() && ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+      try {
+        return (IBatchValidator) Class.forName(BatchValidator.class.getPackageName() + ".VectorBatchValidator")
+            .getDeclaredConstructor(BatchValidator.class)
+            .newInstance(scalar);
+      } catch (ReflectiveOperationException | LinkageError e) {
+        // Fall back to the scalar validator.
+      }
+    }
+    return scalar;
+  }
+
+  @Override
+  public BitSet validateAll (CharSequence [] ids) {
+    BitSet invalid = new BitSet(ids.length);
+
+    for (int i = 0; i < ids.length; i++) {
+      if (! isValid(ids[i])) {
+        invalid.set(i);
+      }
+    }
+    return invalid;
+  }
+
+  @Override
+  public boolean isVectorized () {
+    return false;
+  }
+
+  /**
+   * EncodedId.scanDigits, without the digits or the exceptions. The Luhn sums are kept modulo
+   * the base, so that the vectorized version can keep them in ints of any width.
+   */
+  protected boolean isValid (CharSequence id) {
+    int [] decode = this.decode;
+    int [] luhn = this.tables.luhnDoubled;
+    int base = this.tables.numberBase;
+    int untilSeparator = this.segment;
+    boolean isNegative = false;
+    int count = 0;
+    int sum = 0;
+    int otherSum = 0;
+
+    if (null == id) {
+      return false;
+    }
+    for (int i = 0; i < id.length(); i++) {
+      char c = id.charAt(i);
+
+      if (null != this.template) {
+        char expected = this.template.separatorAt(id.length() - 1 - i);
+
+        if (0 != expected || this.template.isSeparator(c)) {
+          if (c != expected || i == 0) {
+            return false;
+          }
+          continue;
+        }
+      } else if (this.skipSeparators && c == this.separator) {
+        if (this.strict && untilSeparator != 0) {
+          return false;
+        }
+        untilSeparator = this.segment;
+        continue;
+      }
+      if (this.strict && untilSeparator-- == 0) {
+        return false;
+      }
+      if (c == NEGATIVE_SIGN && count == 0 && ! isNegative) {
+        isNegative = true;
+        continue;
+      }
+
+      int value = (c < decode.length) ? decode[c] : NOT_IN_ALPHABET;
+
+      if (value < 0) {
+        if (IGNORABLE == value && ! this.strict && null == this.template) {
+          continue;
+        }
+        return false;
+      }
+      int t = sum;
+      sum = otherSum + luhn[value];
+      otherSum = t + value;
+      sum = (sum >= base) ? sum - base : sum;
+      otherSum = (otherSum >= base) ? otherSum - base : otherSum;
+      count++;
+    }
+
+    if (this.strict && untilSeparator == this.segment) {
+      return false;  // trailing separator, or nothing at all
+    }
+    if (this.checked) {
+      return count > 1 && otherSum == 0;  // with the check character at factor 1, the sum is 0 mod base
+    }
+    return count > 0;
+  }
+}
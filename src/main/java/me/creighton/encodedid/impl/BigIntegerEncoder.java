@@ -6,13 +6,42 @@ import me.creighton.encodedid.IBigIntegerEncoder;
 import me.creighton.encodedid.IEncodedId;
 
 import java.math.BigInteger;
-
-import static me.creighton.encodedid.EncodedIdException.throwInvalidCharacter;
-import static me.creighton.encodedid.EncodedIdException.throwInvalidCheckCharacter;
-import static me.creighton.encodedid.EncodingConstants.*;
-
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import static me.creighton.encodedid.impl.AlphabetTables.OVERFLOW;
+
+/*
+
+  Converting a BigInteger one digit at a time costs a division of the whole number per digit,
+  which is quadratic in its length. Instead, this encoder converts divide-and-conquer style:
+  the number is split by B^(2^k), where B is the largest power of the base that fits in a long,
+  and each half is converted the same way until the pieces fit in a long. Decoding combines the
+  pieces the same way in reverse. The powers B^(2^k) are cached per number base.
+
+  With parallelConversion on, values larger than PARALLEL_THRESHOLD_DIGITS digits convert their
+  halves on the common fork/join pool.
+
+  Most values fit in a long, though, and for those none of that is needed. They are encoded
+  from their long value with LongEncoder's int-sized chunks. An input no longer than the
+  longest encoding of a long is first decoded as LongEncoder decodes it, by LongConversion,
+  with nothing allocated for the digits. Only if that fails, because the value is too big or
+  the input is invalid, are the digits collected into an array and combined as above, or
+  the failure reported as scanDigits finds it. A too big value is read twice, but the first
+  read stops at a long's length. Seeding a BigInteger with the long prefix instead would save
+  nothing: combineDigits already turns each long-sized piece into a long before multiplying.
+
+ */
 public class BigIntegerEncoder extends EncodedId implements IBigIntegerEncoder {
 
+  // Below this many digits, the halves of a split aren't worth handing to another thread.
+  static final int PARALLEL_THRESHOLD_DIGITS = 4096;
+
+  private volatile RadixPowers radixPowers;  // built for the current number base when first needed
+  private boolean parallelConversion = false;
 
   // Public Constructors
 
@@ -23,7 +52,17 @@ public class BigIntegerEncoder extends EncodedId implements IBigIntegerEncoder {
   // Getter overrides
 
   protected BigInteger bigNumberBase () {
-    return BigInteger.valueOf(numberBase());
+    return radixPowers().bigBase;
+  }
+
+  @Override
+  public boolean parallelConversion () {
+    return this.parallelConversion;
+  }
+
+  @Override
+  public void parallelConversion (boolean parallelConversion) {
+    this.parallelConversion = parallelConversion;
   }
 
   // Public Work Methods
@@ -31,110 +70,302 @@ public class BigIntegerEncoder extends EncodedId implements IBigIntegerEncoder {
   @Override
   public String encodeId (BigInteger id) throws EncodedIdException {
 
-    String s = encodeIdWithoutSeparator(id);
-
-    return addSeparators(s);
+    return encode(id, useSeparator());
   }
 
   @Override
   public String encodeIdWithoutSeparator (BigInteger id) throws EncodedIdException {
 
-    StringBuilder eId = new StringBuilder();
-    int nextVal = 0;
-    int countPads = 0;
-    boolean isNegative = (id.compareTo(BigInteger.ZERO) < 0);
+    return encode(id, false);
+  }
 
-    if (isNegative) {
-      id = id.abs(); // equivalent in this case to id *= -1
+  protected String encode (BigInteger id, boolean withSeparators) {
+    boolean isNegative = (id.signum() < 0);
+    byte [] digits;
+    int from = 0;
+
+    if (id.bitLength() < Long.SIZE) {
+      digits = toDigits(isNegative ? -id.longValue() : id.longValue());
+    } else {
+      digits = toDigits(id.abs());
+      while (from < digits.length - 1 && digits[from] == 0) {
+        from++;   // skip leading zeros, but keep one digit for zero
+      }
     }
 
-    if (id.equals(BigInteger.ZERO)) {
-      eId.append(encodeValue(0));       // encode that value
+    byte [] buffer = new byte[encodedLength(digits.length - from, isNegative, withSeparators)];
+    int length = writeEncoding(digits, from, digits.length, isNegative, withSeparators, buffer, 0);
+
+    return new String(buffer, 0, length, StandardCharsets.ISO_8859_1);
+  }
+
+  @Override
+  public BigInteger decodeId (String encodedId) throws EncodedIdException {
+    if (null == encodedId) {
+      // Invalid encodedId
+      throwDecodeFailure(NO_DIGITS, "", 0, 0); // null has no digits
+      // Never returns to here
+    }
+    return decodeId(encodedId, 0, encodedId.length());
+  }
+
+  @Override
+  public BigInteger decodeId (CharSequence src, int start, int end) throws EncodedIdException {
+    Objects.checkFromToIndex(start, end, src.length());
+
+    boolean tooBig = false;  // known not to fit in a long
+
+    if (end - start <= maxDecodeLength(tables().maxLongDigits)) {
+      long [] out = new long[1];
+      int status = decodeLong(src, start, end, out);
+
+      if (status == DECODED) {
+        return BigInteger.valueOf(out[0]);
+      }
+      tooBig = (status == OUT_OF_RANGE);
     }
-    while (id.compareTo(BigInteger.ZERO) > 0) {
-      nextVal = id.mod(bigNumberBase()).intValue(); // grab next value to encode - always int
-      id = id.divide(bigNumberBase());              // reduce the source by one value size
-      eId.append(encodeValue(nextVal));             // encode that value
+
+    // Too big, invalid, or long only by leading zeros or blanks.
+
+    byte [] digits = new byte[end - start];
+    int count = scanDigits(src, start, end, digits);
+    boolean isNegative = (count < 0);
+    long magnitude = tooBig ? OVERFLOW : longValue(digits, Math.abs(count));
+
+    if (magnitude != OVERFLOW && (magnitude >= 0 || isNegative)) {
+      return BigInteger.valueOf(isNegative ? -magnitude : magnitude);  // the magnitude 2^63 is Long.MIN_VALUE
     }
 
-    // Next we need to pad to the min size. Remember that we are building this in reverse.
+    BigInteger id = fromDigits(digits, Math.abs(count));
+
+    return isNegative ? id.negate() : id;
+  }
+
+  // Non-public methods
+
+  /**
+   * LongEncoder.decodeDigits for a signed long: DECODED and out[0] set, or why not.
+   */
+  private int decodeLong (CharSequence src, int start, int end, long [] out) {
+    Settings s = settings();
+    AlphabetTables tables = s.tables;
+    FormatTemplate template = s.useSeparator ? s.template : null;
 
-    countPads = padWidth() - eId.length() - (checkedEncoder() ? 1 : 0);
-    while (countPads-- > 0) {
-      eId.append(encodeValue(0));         // Pad with 0 representation.
+    return LongConversion.decode(src, start, end, out, 0, s.decodeTable, tables.luhnDoubled,
+        tables.signedLimits, tables.numberBase, tables.chunkDigits, s.checkedEncoder, s.useSeparator,
+        s.useSeparator && s.strictSeparators && null == template, s.separator, s.segmentLength, false, template);
+  }
+
+  /**
+   * Returns the digit values of magnitude, most significant first. The array is a whole number
+   * of long-sized pieces wide, so it usually starts with some zeros.
+   */
+  protected byte [] toDigits (BigInteger magnitude) {
+    RadixPowers powers = radixPowers();
+    int level = 0;
+
+    while (magnitude.compareTo(powers.power(level)) >= 0) {
+      level++;
     }
 
-    // Finally, we add the sign if the original string was negative.
+    byte [] digits = new byte[powers.leafDigits << level];
+    boolean parallel = parallelConversion() && digits.length > PARALLEL_THRESHOLD_DIGITS;
+    int top = level;
 
-    if (isNegative) {
-      eId.append(NEGATIVE_SIGN);
+    if (parallel) {
+      ForkJoinPool.commonPool().invoke(ForkJoinTask.adapt(
+          () -> fillDigits(powers, magnitude, top, digits, digits.length, true)));
+    } else {
+      fillDigits(powers, magnitude, top, digits, digits.length, false);
     }
+    return digits;
+  }
 
-    // After optional padding, reverse the string to make it the right way.
-    eId.reverse();
+  /**
+   * Returns the digit values of magnitude, which is treated as an unsigned 64-bit value,
+   * most significant first, with no leading zeros.
+   */
+  protected byte [] toDigits (long magnitude) {
+    byte [] digits = new byte[digitCount(magnitude)];
 
-    // Now append check character if enabled
+    fillLeaf(magnitude, digits.length, digits, digits.length);
+    return digits;
+  }
 
-    if (checkedEncoder()) {
-      String s = eId.toString();
-      if (isNegative) {
-        s = s.substring(1); // skip the negative sign
-      }
-      char checkCharacter = generateCheckCharacter(s);
+  /**
+   * Writes x, which is less than B^(2^level), as exactly leafDigits * 2^level digits ending
+   * just before digits[end].
+   */
+  private void fillDigits (RadixPowers powers, BigInteger x, int level, byte [] digits, int end, boolean parallel) {
+    if (x.signum() == 0) {
+      return;  // the array is already zero
+    }
+    if (level == 0) {
+      fillLeaf(x.longValue(), powers.leafDigits, digits, end);
+      return;
+    }
 
-      eId.append(checkCharacter);
+    BigInteger [] highLow = x.divideAndRemainder(powers.power(level - 1));
+    int half = powers.leafDigits << (level - 1);
+
+    if (parallel && half > PARALLEL_THRESHOLD_DIGITS) {
+      ForkJoinTask<?> high = ForkJoinTask.adapt(
+          () -> fillDigits(powers, highLow[0], level - 1, digits, end - half, true)).fork();
+      fillDigits(powers, highLow[1], level - 1, digits, end, true);
+      high.join();
+    } else {
+      fillDigits(powers, highLow[1], level - 1, digits, end, parallel);
+      fillDigits(powers, highLow[0], level - 1, digits, end - half, parallel);
     }
+  }
 
-    return eId.toString();
+  /**
+   * Writes value as exactly count digits ending just before digits[end], using int-sized chunks.
+   * The first chunk is split off as unsigned, so value can be the magnitude of Long.MIN_VALUE.
+   */
+  private void fillLeaf (long value, int count, byte [] digits, int end) {
+    int base = numberBase();
+    int chunkPower = chunkPower();
+    int pos = end;
+    int chunk = (int) Long.remainderUnsigned(value, chunkPower);
+    long rest = Long.divideUnsigned(value, chunkPower);
+
+    while (pos > end - count) {
+      for (int i = chunkDigits(); i > 0 && pos > end - count; i--) {
+        digits[--pos] = (byte) (chunk % base);
+        chunk /= base;
+      }
+      chunk = (int) (rest % chunkPower);
+      rest /= chunkPower;
+    }
   }
 
-  @Override
-  public BigInteger decodeId(String encodedId) throws EncodedIdException {
-    BigInteger id = ( null == encodedId || encodedId.length() == 0) ?
-                      BigInteger.valueOf(-1) :
-                      BigInteger.ZERO;
-    int nextVal;
-    boolean isNegative = false; // assume positive id
+  /**
+   * The value of the digit values digits[0, count), most significant first.
+   */
+  protected BigInteger fromDigits (byte [] digits, int count) {
+    RadixPowers powers = radixPowers();
+    int level = 0;
+
+    while ((powers.leafDigits << level) < count) {
+      level++;
+    }
+    powers.power(level);  // build the table before any other thread needs it
 
-    String s = encodedId;
+    boolean parallel = parallelConversion() && count > PARALLEL_THRESHOLD_DIGITS;
+    int top = level;
 
-    if (id.compareTo(BigInteger.ZERO) < 0) {
-      // Invalid encodedId
-      throwInvalidCharacter(' '); // Not really a space - null length or null
-      // Never returns to here
+    if (parallel) {
+      return ForkJoinPool.commonPool().invoke(ForkJoinTask.adapt(
+          () -> combineDigits(powers, digits, count, top, true)));
     }
-    if (useSeparator()) {
-      // If this is true - scan for and eliminate all separator characters.
-      s = "" + this.separator();
-      s = encodedId.replaceAll(s, "");
+    return combineDigits(powers, digits, count, top, false);
+  }
+
+  /**
+   * The value of the leafDigits * 2^level digits ending just before digits[end], where
+   * positions before digits[0] count as zero.
+   */
+  private BigInteger combineDigits (RadixPowers powers, byte [] digits, int end, int level, boolean parallel) {
+    if (end <= 0) {
+      return BigInteger.ZERO;
+    }
+    if (level == 0) {
+      return BigInteger.valueOf(leafValue(digits, Math.max(0, end - powers.leafDigits), end));
+    }
+
+    int half = powers.leafDigits << (level - 1);
+    BigInteger high;
+    BigInteger low;
+
+    if (parallel && half > PARALLEL_THRESHOLD_DIGITS) {
+      ForkJoinTask<BigInteger> highTask = ForkJoinTask.adapt(
+          () -> combineDigits(powers, digits, end - half, level - 1, true)).fork();
+      low = combineDigits(powers, digits, end, level - 1, true);
+      high = highTask.join();
+    } else {
+      low = combineDigits(powers, digits, end, level - 1, parallel);
+      high = combineDigits(powers, digits, end - half, level - 1, parallel);
+    }
+    return (high.signum() == 0) ? low : high.multiply(powers.power(level - 1)).add(low);
+  }
+
+  /**
+   * The value of the digit values digits[0, count) as an unsigned long no more than 2^63, or
+   * OVERFLOW if it is bigger than that. Leading zeros never overflow.
+   */
+  private long longValue (byte [] digits, int count) {
+    AlphabetTables.Limits limits = tables().signedLimits;
+    long magnitude = 0;
+
+    for (int i = 0; i < count && magnitude != OVERFLOW; i++) {
+      magnitude = limits.fold(magnitude, 1, digits[i] & 0xff);
     }
-    // At this point we have an encoded string with no separators
-    // Note that 0 == id at this point
+    return magnitude;
+  }
 
+  private long leafValue (byte [] digits, int from, int to) {
+    int base = numberBase();
+    long value = 0;
 
-    // Now check for the negative sign.
-    if(s.charAt(0) == NEGATIVE_SIGN) {
-      isNegative = true;
-      s = s.substring(1); // trim the negative sign
+    for (int i = from; i < to; i++) {
+      value = value * base + (digits[i] & 0xff);
     }
+    return value;
+  }
 
-    // If isCheckedEncoder then the right-most character is the check character.
-    // First validate that check character is correct, then decode a shorter length.
+  private RadixPowers radixPowers () {
+    RadixPowers powers = this.radixPowers;
+
+    if (null == powers || powers.base != numberBase()) {
+      powers = new RadixPowers(numberBase());
+      this.radixPowers = powers;
+    }
+    return powers;
+  }
 
-    if (checkedEncoder()) {
-      if (! validateCheckCharacter(s)) {
-        throwInvalidCheckCharacter(s);
-        // !!! Never returns here !!!
+  /**
+   * B^(2^k) for k = 0, 1, 2, ..., where B = base^leafDigits is the largest power of the base
+   * that fits in a long. The table grows as larger values are converted.
+   */
+  static final class RadixPowers {
+    final int base;
+    final BigInteger bigBase;
+    final int leafDigits;
+    private volatile BigInteger [] table;
+
+    RadixPowers (int base) {
+      long leaf = base;
+      int digits = 1;
+
+      while (leaf <= Long.MAX_VALUE / base) {
+        leaf *= base;
+        digits++;
       }
-      s = s.substring(0, s.length() - 1);
+      this.base = base;
+      this.bigBase = BigInteger.valueOf(base);
+      this.leafDigits = digits;
+      this.table = new BigInteger[] {BigInteger.valueOf(leaf)};
     }
 
-    for (int i = 0; i < s.length(); i++) {
-      id = id.multiply(bigNumberBase());        // Shift current value in the accumulator
-      nextVal = decodeChar(s.charAt(i));
-      id = id.add(BigInteger.valueOf(nextVal)); // Add in the value of the current character.
+    BigInteger power (int level) {
+      BigInteger [] t = this.table;
+
+      if (level < t.length) {
+        return t[level];
+      }
+      synchronized (this) {
+        t = this.table;
+        if (level >= t.length) {
+          BigInteger [] grown = Arrays.copyOf(t, level + 1);
+          for (int i = t.length; i <= level; i++) {
+            grown[i] = grown[i - 1].multiply(grown[i - 1]);
+          }
+          this.table = t = grown;
+        }
+        return t[level];
+      }
     }
-    return id.multiply(isNegative ? BigInteger.valueOf(-1) : BigInteger.ONE);
   }
 
 }
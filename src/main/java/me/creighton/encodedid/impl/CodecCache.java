@@ -0,0 +1,257 @@
+package me.creighton.encodedid.impl;
+
+import me.creighton.encodedid.EncodedIdException;
+import me.creighton.encodedid.ICodecCache;
+import me.creighton.encodedid.IEncodedId;
+import me.creighton.encodedid.ILongEncoder;
+import me.creighton.encodedid.IUuidEncoder;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiFunction;
+
+/*
+
+  An LRU cache of compiled encoders. Lookups take a lock, but an encoder is
+  built outside of it, so one slow build doesn't hold up every other tenant.
+  If two threads miss on the same key at once, both build and the first one
+  cached wins.
+
+  Encoders with the same alphabet share one AlphabetTables, however else they
+  differ, for as long as any of them is cached. An encoder built before another
+  thread registered its alphabet's tables keeps tables of its own, and isn't
+  counted as a user of the shared ones.
+
+ */
+public class CodecCache implements ICodecCache {
+
+  private final int maxSize;
+  private final Map<Key, CompiledCodec> encoders;
+  private final Map<String, SharedTables> tablesByAlphabet = new HashMap<>();
+  private long hits = 0;
+  private long misses = 0;
+  private long evictions = 0;
+
+  public CodecCache (int maxSize) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("maxSize must be at least 1: " + maxSize);
+    }
+    this.maxSize = maxSize;
+    this.encoders = new LinkedHashMap<>(16, 0.75f, true) {  // access order, for LRU
+      @Override
+      protected boolean removeEldestEntry (Map.Entry<Key, CompiledCodec> eldest) {
+        if (size() > CodecCache.this.maxSize) {
+          release(eldest.getKey().alphabet, eldest.getValue().tables());
+          CodecCache.this.evictions++;
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  // Public Work Methods
+
+  @Override
+  public ILongEncoder longEncoder (IEncodedId.Builder builder) throws EncodedIdException {
+    return (ILongEncoder) lookup(new Key(ILongEncoder.class, builder), LongCodec::new);
+  }
+
+  @Override
+  public IUuidEncoder uuidEncoder (IEncodedId.Builder builder) throws EncodedIdException {
+    return (IUuidEncoder) lookup(new Key(IUuidEncoder.class, builder), UuidCodec::new);
+  }
+
+  @Override
+  public synchronized long hits () {
+    return this.hits;
+  }
+
+  @Override
+  public synchronized long misses () {
+    return this.misses;
+  }
+
+  @Override
+  public synchronized long evictions () {
+    return this.evictions;
+  }
+
+  @Override
+  public synchronized int size () {
+    return this.encoders.size();
+  }
+
+  @Override
+  public int maxSize () {
+    return this.maxSize;
+  }
+
+  // Non-public methods
+
+  private IEncodedId lookup (Key key, BiFunction<EncodedId.Builder, AlphabetTables, CompiledCodec> compiler) {
+    AlphabetTables tables;
+
+    synchronized (this) {
+      IEncodedId encoder = this.encoders.get(key);
+
+      if (null != encoder) {
+        this.hits++;
+        return encoder;
+      }
+      this.misses++;
+      SharedTables shared = this.tablesByAlphabet.get(key.alphabet);
+      tables = (null != shared) ? shared.tables : null;
+    }
+
+    CompiledCodec built = compiler.apply(key.toBuilder(), tables);
+
+    synchronized (this) {
+      IEncodedId encoder = this.encoders.get(key);
+
+      if (null != encoder) {
+        return encoder;  // another thread got there first
+      }
+      SharedTables shared = this.tablesByAlphabet.get(key.alphabet);
+      if (null == shared) {
+        shared = new SharedTables(built.tables());
+        this.tablesByAlphabet.put(key.alphabet, shared);
+      }
+      if (built.tables() == shared.tables) {
+        shared.users++;
+      }
+      this.encoders.put(key, built);
+      return built;
+    }
+  }
+
+  // Called with the lock held, as an encoder using alphabet and tables is evicted.
+  private void release (String alphabet, AlphabetTables tables) {
+    SharedTables shared = this.tablesByAlphabet.get(alphabet);
+
+    if (null != shared && shared.tables == tables && --shared.users == 0) {
+      this.tablesByAlphabet.remove(alphabet);
+    }
+  }
+
+  private static final class SharedTables {
+    final AlphabetTables tables;
+    int users = 0;  // cached encoders with this alphabet
+
+    SharedTables (AlphabetTables tables) {
+      this.tables = tables;
+    }
+  }
+
+  /**
+   * Every builder setting, and the kind of encoder built from them.
+   */
+  private static final class Key {
+    final Class<?> kind;
+    final String alphabet;
+    final String characterSet;
+    final char separator;
+    final boolean useSeparator;
+    final boolean strictSeparators;
+    final int padWidth;
+    final int segmentLength;
+    final String formatTemplate;
+    final boolean tolerantDecoding;
+    final boolean checkedEncoder;
+    final boolean stacklessExceptions;
+    final long minId;
+    final long maxId;
+    final boolean fixedWidth;
+    final boolean specialized;
+    final boolean twoDigitTables;
+    final boolean unsigned;
+    final int rangeTableLimit;
+    private final int hash;  // every lookup hashes a new Key, so work it out once
+
+    Key (Class<?> kind, IEncodedId.Builder builder) {
+      this.kind = kind;
+      this.alphabet = builder.getAlphabet();
+      this.characterSet = builder.getCharacterSet();
+      this.separator = builder.getSeparator();
+      this.useSeparator = builder.useSeparator();
+      this.strictSeparators = builder.isStrictSeparators();
+      this.padWidth = builder.getPadWidth();
+      this.segmentLength = builder.getSegmentLength();
+      this.formatTemplate = builder.getFormatTemplate();
+      this.tolerantDecoding = builder.isTolerantDecoding();
+      this.checkedEncoder = builder.isCheckedEncoder();
+      this.stacklessExceptions = builder.isStacklessExceptions();
+      this.minId = builder.getMinId();
+      this.maxId = builder.getMaxId();
+      this.fixedWidth = builder.isFixedWidth();
+      this.specialized = builder.isSpecialized();
+      this.twoDigitTables = builder.isTwoDigitTables();
+      this.unsigned = builder.isUnsigned();
+      this.rangeTableLimit = builder.getRangeTableLimit();
+      this.hash = Objects.hash(this.kind, this.alphabet, this.characterSet, this.separator, this.useSeparator,
+          this.strictSeparators, this.padWidth, this.segmentLength, this.formatTemplate,
+          this.tolerantDecoding, this.checkedEncoder, this.stacklessExceptions, this.minId, this.maxId, this.fixedWidth,
+          this.specialized, this.twoDigitTables, this.unsigned, this.rangeTableLimit);
+    }
+
+    // A builder of our own, so the caller's builder is never changed.
+    EncodedId.Builder toBuilder () {
+      EncodedId.Builder builder = new EncodedId.Builder(this.alphabet, this.characterSet);
+
+      builder.separator(this.separator)
+             .separator(this.useSeparator)
+             .strictSeparators(this.strictSeparators)
+             .padWidth(this.padWidth)
+             .segmentLength(this.segmentLength)
+             .formatTemplate(this.formatTemplate)
+             .tolerantDecoding(this.tolerantDecoding)
+             .checkedEncoder(this.checkedEncoder)
+             .stacklessExceptions(this.stacklessExceptions)
+             .setMinId(this.minId)
+             .setMaxId(this.maxId)
+             .fixedWidth(this.fixedWidth)
+             .specialized(this.specialized)
+             .twoDigitTables(this.twoDigitTables)
+             .unsigned(this.unsigned)
+             .rangeTableLimit(this.rangeTableLimit);
+      return builder;
+    }
+
+    @Override
+    public boolean equals (Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (! (o instanceof Key)) {
+        return false;
+      }
+      Key k = (Key) o;
+      return this.kind == k.kind
+          && Objects.equals(this.alphabet, k.alphabet)
+          && Objects.equals(this.characterSet, k.characterSet)
+          && this.separator == k.separator
+          && this.useSeparator == k.useSeparator
+          && this.strictSeparators == k.strictSeparators
+          && this.padWidth == k.padWidth
+          && this.segmentLength == k.segmentLength
+          && Objects.equals(this.formatTemplate, k.formatTemplate)
+          && this.tolerantDecoding == k.tolerantDecoding
+          && this.checkedEncoder == k.checkedEncoder
+          && this.stacklessExceptions == k.stacklessExceptions
+          && this.minId == k.minId
+          && this.maxId == k.maxId
+          && this.fixedWidth == k.fixedWidth
+          && this.specialized == k.specialized
+          && this.twoDigitTables == k.twoDigitTables
+          && this.unsigned == k.unsigned
+          && this.rangeTableLimit == k.rangeTableLimit;
+    }
+
+    @Override
+    public int hashCode () {
+      return this.hash;
+    }
+  }
+}
@@ -0,0 +1,179 @@
+package me.creighton.encodedid.impl;
+
+import me.creighton.encodedid.EncodedIdException;
+import me.creighton.encodedid.IEncodedId;
+
+/*
+
+  A compiled codec is built once from an IEncodedId.Builder and never changes.
+  It owns an encoder that nothing else can reach and refuses every setter, so
+  the encoder's EncodedId.Settings are never replaced. The codec keeps those
+  settings in a final field of its own and answers every getter from them.
+  Settings are immutable, with only final fields, and the Java memory model
+  guarantees that any thread which sees a codec sees them, the alphabet tables
+  included, as they were when the constructor finished, even if the codec was
+  handed over without synchronization. So one codec can be shared by every
+  request thread.
+
+  The encoders themselves stay mutable for the code that configures them as it
+  goes, like App does with checkedEncoder: each setter replaces their settings
+  with a changed copy.
+
+ */
+abstract class CompiledCodec implements IEncodedId {
+
+  private final EncodedId.Settings settings;
+
+  protected CompiledCodec (EncodedId encoder) {
+    this.settings = encoder.settings();
+  }
+
+  AlphabetTables tables () {
+    return this.settings.tables;
+  }
+
+  EncodedId.Settings settings () {
+    return this.settings;
+  }
+
+  /**
+   * Indicates if this codec and other use the very same alphabet tables, as the codecs of one
+   * CodecCache with the same alphabet do.
+   */
+  public boolean sharesTablesWith (IEncodedId other) {
+    return other instanceof CompiledCodec && ((CompiledCodec) other).tables() == tables();
+  }
+
+  protected static void throwImmutable (String attribute) {
+    throw new UnsupportedOperationException("A compiled codec can't change its " + attribute);
+  }
+
+  // Getters read the settings; setters never return.
+
+  @Override
+  public char separator () {
+    return this.settings.separator;
+  }
+
+  @Override
+  public void separator (char separator) {
+    throwImmutable("separator");
+  }
+
+  @Override
+  public String alphabet () {
+    return this.settings.alphabet;
+  }
+
+  @Override
+  public void alphabet (String alphabet, String characterSet) throws EncodedIdException {
+    throwImmutable("alphabet");
+  }
+
+  @Override
+  public String characterSet () {
+    return this.settings.characterSet;
+  }
+
+  @Override
+  public boolean useSeparator () {
+    return this.settings.useSeparator;
+  }
+
+  @Override
+  public void useSeparator (boolean useSeparator) {
+    throwImmutable("useSeparator");
+  }
+
+  @Override
+  public boolean strictSeparators () {
+    return this.settings.strictSeparators;
+  }
+
+  @Override
+  public void strictSeparators (boolean strictSeparators) {
+    throwImmutable("strictSeparators");
+  }
+
+  @Override
+  public int padWidth () {
+    return this.settings.padWidth;
+  }
+
+  @Override
+  public void padWidth (int padWidth) throws EncodedIdException {
+    throwImmutable("padWidth");
+  }
+
+  @Override
+  public int segmentLength () {
+    return this.settings.segmentLength;
+  }
+
+  @Override
+  public void segmentLength (int segmentLength) throws EncodedIdException {
+    throwImmutable("segmentLength");
+  }
+
+  @Override
+  public String formatTemplate () {
+    return (null == this.settings.template) ? null : this.settings.template.template;
+  }
+
+  @Override
+  public void formatTemplate (String formatTemplate) throws EncodedIdException {
+    throwImmutable("formatTemplate");
+  }
+
+  @Override
+  public boolean tolerantDecoding () {
+    return this.settings.tolerantDecoding;
+  }
+
+  @Override
+  public void tolerantDecoding (boolean tolerantDecoding) {
+    throwImmutable("tolerantDecoding");
+  }
+
+  @Override
+  public boolean checkedEncoder () {
+    return this.settings.checkedEncoder;
+  }
+
+  @Override
+  public void checkedEncoder (boolean checkedEncoder) {
+    throwImmutable("checkedEncoder");
+  }
+
+  @Override
+  public boolean stacklessExceptions () {
+    return this.settings.stacklessExceptions;
+  }
+
+  @Override
+  public void stacklessExceptions (boolean stacklessExceptions) {
+    throwImmutable("stacklessExceptions");
+  }
+
+  @Override
+  public long getMinId () {
+    return this.settings.minId;
+  }
+
+  @Override
+  public long getMaxId () {
+    return this.settings.maxId;
+  }
+
+  @Override
+  public IEncodedId setMinId (long minId) {
+    throwImmutable("minId");
+    return this;  // Never returns to here
+  }
+
+  @Override
+  public IEncodedId setMaxId (long maxId) {
+    throwImmutable("maxId");
+    return this;  // Never returns to here
+  }
+}
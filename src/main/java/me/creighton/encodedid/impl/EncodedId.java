@@ -3,6 +3,12 @@ package me.creighton.encodedid.impl;
 
 import me.creighton.encodedid.EncodedIdException;
 import me.creighton.encodedid.IEncodedId;
+import me.creighton.encodedid.ILongEncoder;
+import me.creighton.encodedid.IUuidEncoder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
 
 import static me.creighton.encodedid.EncodedIdException.*;
 import static me.creighton.encodedid.Utilities.isValidAlphabet;
@@ -12,51 +18,55 @@ import static me.creighton.encodedid.EncodingConstants.*;
 
 public abstract class EncodedId implements IEncodedId {
 
+  // Sentinel in the decode table for characters that are not in the alphabet.
+  protected static final int NOT_IN_ALPHABET = -1;
+
+  // Sentinel in the tolerant decode table for blanks and dashes that decoding skips.
+  protected static final int IGNORABLE = -2;
+
+  private static final char LATIN1_MAX = '\u00ff';
 
-  private char separator = DEFAULT_SEPARATOR;
-  private String alphabet = DEFAULT_ALPHABET;
-  private String characterSet = BASE_DEFAULT_CHARACTER_SET;
-  private boolean useSeparator = false;
-  private int padWidth = 0;
-  private int segmentLength = DEFAULT_SEGMENT_LENGTH;
-  private long minId = Long.MIN_VALUE;
-  private long maxId = Long.MAX_VALUE;
+  // Where decoders put a value when their caller has no array for it, one per thread, so that
+  // decoding, and failing to, allocates nothing.
+  private static final ThreadLocal<long []> DECODED_VALUE = ThreadLocal.withInitial(() -> new long[1]);
 
-  private int numberBase = 0;
-  private boolean checkedEncoder = false; // Default is to not use check characters.
+  private Settings settings;  // replaced as a whole by every setter; see Settings
 
   // Constructors
 
   public EncodedId (IEncodedId.Builder builder) throws EncodedIdException {
-    this.alphabet(builder.getAlphabet(), builder.getCharacterSet());
-    this.separator(builder.getSeparator());
-    this.useSeparator(builder.useSeparator());
-    this.segmentLength(builder.getSegmentLength());
-    this.checkedEncoder(builder.isCheckedEncoder());
-    this.padWidth(builder.getPadWidth());
-    this.setMinId(builder.getMinId());
-    this.setMaxId(builder.getMaxId());
+    this(builder, null);
+  }
+
+  /**
+   * Uses shared if it holds the tables for the builder's alphabet, so that encoders with the
+   * same alphabet can have one copy of them.
+   */
+  EncodedId (IEncodedId.Builder builder, AlphabetTables shared) throws EncodedIdException {
+    checkAlphabet(builder.getAlphabet(), builder.getCharacterSet());
+    checkSeparator(builder.getSeparator(), builder.getAlphabet());
+    checkSegmentLength(builder.getSegmentLength());
+    checkPadWidth(builder.getPadWidth());
+    checkRangeTableLimit(builder.getRangeTableLimit());
+    this.settings = new Settings(builder, shared);
   }
 
   // Public Getters/Setters
 
   @Override
   public char separator() {
-    return this.separator;
+    return this.settings.separator;
   }
 
   @Override
   public void separator(char separator) {
-    if (! isValidSeparator(separator, this.alphabet)) {
-      throwInvalidSeparator(separator, this.alphabet);
-    }
-
-    this.separator = separator;
+    checkSeparator(separator, alphabet());
+    update(b -> b.separator = separator);
   }
 
   @Override
   public String alphabet() {
-    return this.alphabet;
+    return this.settings.alphabet;
   }
 
   @Override
@@ -65,110 +75,205 @@ public abstract class EncodedId implements IEncodedId {
     // We must check that the separator is legal for this alphabet if
     // useSeparator returns true.
 
-    if (! isValidAlphabet(alphabet, characterSet)) {
-      throwInvalidAlphabet(alphabet, characterSet);
-    }
+    checkAlphabet(alphabet, characterSet);
     if (useSeparator() && ! isValidSeparator(this.separator(), alphabet)) {
-      throwInvalidSeparator(this.separator, alphabet);
+      throwInvalidSeparator(this.separator(), alphabet);
+    }
+    if (null != template() && ! template().fits(alphabet)) {
+      throwInvalidFormatTemplate(formatTemplate(), alphabet);
     }
-    this.alphabet = alphabet;
-    numberBase(alphabet.length()); // String.length() returns int, so we can depend on it being <= Integer.MAX_VALUE.
+    update(b -> {
+      b.alphabet = alphabet;
+      b.characterSet = characterSet;
+    });
   }
 
   @Override
   public String characterSet () {
-    return this.characterSet;
-  }
-
-  protected void setCharacterSet (String characterSet) {
-    this.characterSet = characterSet;
+    return this.settings.characterSet;
   }
 
   @Override
   public boolean useSeparator() {
-    return this.useSeparator;
+    return this.settings.useSeparator;
   }
 
   @Override
   public void useSeparator(boolean separator) {
 
     if (separator && !isValidSeparator(this.separator(), alphabet())) {
-      throwInvalidSeparator(this.separator, this.alphabet);
+      throwInvalidSeparator(this.separator(), alphabet());
     }
 
-    this.useSeparator = separator;
+    update(b -> b.useSeparator = separator);
+  }
+
+  @Override
+  public boolean strictSeparators() {
+    return this.settings.strictSeparators;
+  }
+
+  @Override
+  public void strictSeparators(boolean strictSeparators) {
+    update(b -> b.strictSeparators = strictSeparators);
   }
 
   protected int numberBase() {
-    return this.numberBase;
+    return this.settings.tables.numberBase;
   }
 
-  private void numberBase(int numberBase) {
-    this.numberBase = numberBase;
+  /**
+   * The tables derived from the alphabet, which may be shared with other encoders.
+   */
+  AlphabetTables tables () {
+    return this.settings.tables;
+  }
+
+  /**
+   * Everything this encoder is configured with, as it is now.
+   */
+  Settings settings () {
+    return this.settings;
   }
 
   @Override
   public int padWidth() {
-    return this.padWidth;
+    return this.settings.padWidth;
   }
 
   @Override
   public void padWidth(int padWidth) throws EncodedIdException {
-    if (padWidth < 0 || padWidth > MAX_PAD_LENGTH)
-      throwInvalidPadWidth(padWidth);
-
-    this.padWidth = padWidth;
+    checkPadWidth(padWidth);
+    update(b -> b.padWidth = padWidth);
   }
 
   @Override
   public int segmentLength() {
-    return this.segmentLength;
+    return this.settings.segmentLength;
   }
 
   @Override
   public void segmentLength(int segmentLength) throws EncodedIdException {
-    if (segmentLength < MIN_SEGMENT_LENGTH || segmentLength > MAX_SEGMENT_LENGTH) {
-      throwBadSegmentLength(segmentLength);
-      // Never returns to here.
-    }
+    checkSegmentLength(segmentLength);
+    update(b -> b.segmentLength = segmentLength);
+  }
+
+  @Override
+  public String formatTemplate () {
+    return (null == template()) ? null : template().template;
+  }
+
+  @Override
+  public void formatTemplate (String formatTemplate) throws EncodedIdException {
+    update(b -> b.formatTemplate = formatTemplate);  // Settings compiles it, and throws if it is invalid
+  }
+
+  @Override
+  public boolean tolerantDecoding () {
+    return this.settings.tolerantDecoding;
+  }
+
+  @Override
+  public void tolerantDecoding (boolean tolerantDecoding) {
+    update(b -> b.tolerantDecoding = tolerantDecoding);
+  }
 
-    this.segmentLength = segmentLength;
+  /**
+   * The compiled formatTemplate, or null.
+   */
+  FormatTemplate template () {
+    return this.settings.template;
   }
 
   @Override
   public boolean checkedEncoder() {
-    return this.checkedEncoder;
+    return this.settings.checkedEncoder;
   }
 
   @Override
   public void checkedEncoder(boolean checkedEncoder) {
-    this.checkedEncoder = checkedEncoder;
+    update(b -> b.checkedEncoder = checkedEncoder);
+  }
+
+  @Override
+  public boolean stacklessExceptions() {
+    return this.settings.stacklessExceptions;
+  }
+
+  @Override
+  public void stacklessExceptions(boolean stacklessExceptions) {
+    update(b -> b.stacklessExceptions = stacklessExceptions);
   }
 
   @Override
   public long getMinId () {
-    return this.minId;
+    return this.settings.minId;
   }
 
   @Override
   public long getMaxId () {
-    return this.maxId;
+    return this.settings.maxId;
   }
 
   @Override
   public EncodedId setMinId (long minId) {
-    this.minId = minId;
+    update(b -> b.minId = minId);
 
     return this;
   }
 
   @Override
   public EncodedId setMaxId (long maxId) {
-    this.maxId = maxId;
+    update(b -> b.maxId = maxId);
 
     return this;
   }
 
+  /**
+   * Replaces the settings with a copy that has change applied. The copy keeps the alphabet
+   * tables unless the alphabet changed. Arguments are checked before this, as the setters do.
+   */
+  protected void update (Consumer<Builder> change) {
+    Builder changed = this.settings.toBuilder();
+
+    change.accept(changed);
+    this.settings = new Settings(changed, this.settings.tables);
+  }
+
+  private static void checkAlphabet (String alphabet, String characterSet) throws EncodedIdException {
+    // Encodings are built as Latin-1 bytes, so every character of the alphabet must fit in one.
+
+    if (! isValidAlphabet(alphabet, characterSet) || null == alphabet
+            || alphabet.length() < 2 || ! isLatin1(alphabet)) {
+      throwInvalidAlphabet(alphabet, characterSet);
+    }
+  }
+
+  private static void checkSeparator (char separator, String alphabet) throws EncodedIdException {
+    if (! isValidSeparator(separator, alphabet) || separator > LATIN1_MAX) {
+      throwInvalidSeparator(separator, alphabet);
+    }
+  }
+
+  private static void checkSegmentLength (int segmentLength) throws EncodedIdException {
+    if (segmentLength < MIN_SEGMENT_LENGTH || segmentLength > MAX_SEGMENT_LENGTH) {
+      throwBadSegmentLength(segmentLength);
+      // Never returns to here.
+    }
+  }
+
+  private static void checkPadWidth (int padWidth) throws EncodedIdException {
+    if (padWidth < 0 || padWidth > MAX_PAD_LENGTH)
+      throwInvalidPadWidth(padWidth);
+  }
+
+  protected static void checkRangeTableLimit (int rangeTableLimit) throws EncodedIdException {
+    if (rangeTableLimit < 0) {
+      throwInvalidRangeTableLimit(rangeTableLimit);
+      // Never returns to here.
+    }
+  }
+
   // Non-public methods
 
   /**
@@ -190,8 +295,8 @@ public abstract class EncodedId implements IEncodedId {
   protected int decodeChar (char encodedChar) throws EncodedIdException {
     int value;
 
-    value = alphabet().indexOf(encodedChar);
-    if (-1 == value) {
+    value = valueOf(encodedChar);
+    if (NOT_IN_ALPHABET == value) {
       // This means encodedId has a character not in the alphabet - bad!
       throwInvalidCharacter(encodedChar);
       // Never returns to here.
@@ -199,22 +304,382 @@ public abstract class EncodedId implements IEncodedId {
     return value;
   }
 
+  /**
+   * Returns the value of a character in the alphabet or NOT_IN_ALPHABET, or IGNORABLE if
+   * tolerantDecoding skips it. This is a single array lookup rather than a scan of the
+   * alphabet, tolerant or not.
+   */
+  protected int valueOf (char encodedChar) {
+    int [] table = this.settings.decodeTable;
+
+    return encodedChar < table.length ? table[encodedChar] : NOT_IN_ALPHABET;
+  }
+
+  /**
+   * The reverse table valueOf reads.
+   */
+  int [] decodeTable () {
+    return this.settings.decodeTable;
+  }
+
+  protected byte [] encodeTable () {
+    return this.settings.tables.encodeTable;
+  }
+
+  /**
+   * Returns the number of digits needed to encode magnitude, which is treated as an unsigned
+   * 64-bit value so that the magnitude of Long.MIN_VALUE is handled. Zero takes one digit.
+   *
+   * Every value with the same bit length needs the same number of digits as the smallest of
+   * them, or one more, since the base is at least 2. So this is a table lookup by bit length
+   * and one comparison rather than a division per digit.
+   */
+  protected int digitCount (long magnitude) {
+    AlphabetTables t = this.settings.tables;
+    int count = t.digitsByBitLength[Long.SIZE - Long.numberOfLeadingZeros(magnitude)];
+    long [] p = t.powers;
+
+    if (count < p.length && Long.compareUnsigned(magnitude, p[count]) >= 0) {
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * For a number base that is a power of two this is its log2, so a digit is taken with
+   * a mask and a shift instead of a remainder and a division. Otherwise it is 0.
+   */
+  protected int digitShift () {
+    return this.settings.tables.digitShift;
+  }
+
+  /**
+   * The number of digits in a chunk: the largest k for which numberBase^k fits in an int,
+   * so any k digits can be converted with 32-bit arithmetic.
+   */
+  protected int chunkDigits () {
+    return this.settings.tables.chunkDigits;
+  }
+
+  /**
+   * numberBase^chunkDigits
+   */
+  protected int chunkPower () {
+    return this.settings.tables.chunkPower;
+  }
+
+  /**
+   * The tables to encode two digits at a time from, or null if not twoDigitTables or if the base
+   * is a power of two, which has no division to save.
+   */
+  AlphabetTables.TwoDigitTables encodePairs () {
+    Settings s = this.settings;
+
+    return (s.twoDigitTables && s.tables.digitShift == 0) ? s.tables.twoDigitTables() : null;
+  }
+
+  /**
+   * numberBase^k, for k < maxDigits.
+   */
+  protected long power (int k) {
+    return this.settings.tables.powers[k];
+  }
+
+  /**
+   * The largest number of digits any 64-bit magnitude can take in this number base.
+   */
+  protected int maxDigits () {
+    return this.settings.tables.powers.length;
+  }
+
+  private static boolean isLatin1 (String s) {
+    for (int i = 0; i < s.length(); i++) {
+      if (s.charAt(i) > LATIN1_MAX) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * The longest input a decoder of values with at most maxDigits digits reads: the longest
+   * encoding, or, if separators may be anywhere, that with a separator before and after every
+   * character. Tolerant decoding allows as many blanks and dashes again. Anything longer has too
+   * many digits, or more leading zeros than padding, and is rejected without a look.
+   */
+  protected int maxDecodeLength (int maxDigits) {
+    int length = encodedLength(maxDigits, true, false);
+
+    if (useSeparator() && (strictSeparators() || null != template())) {
+      return separatedLength(length);  // nothing is skipped where separators have fixed places
+    }
+    int loose = useSeparator() ? 2 * length + 1 : length;
+
+    return tolerantDecoding() ? 2 * loose : loose;
+  }
+
+  /**
+   * The length of an encoding of length characters once separators are added: one after every
+   * segmentLength characters, or wherever the format template puts them.
+   */
+  protected int separatedLength (int length) {
+    FormatTemplate template = template();
+
+    return (null != template) ? template.length(length) : length + (length - 1) / segmentLength();
+  }
+
+  /**
+   * Indicates if c is skipped as a separator when decoding.
+   */
+  protected boolean isSeparator (char c) {
+    FormatTemplate template = template();
+
+    return useSeparator() && ((null != template) ? template.isSeparator(c) : c == separator());
+  }
+
+  /**
+   * The length of an encoding with digitCount digits once padding, sign, check character and,
+   * if withSeparators, separators are added.
+   */
+  protected int encodedLength (int digitCount, boolean isNegative, boolean withSeparators) {
+    int check = checkedEncoder() ? 1 : 0;
+    int length = (isNegative ? 1 : 0) + Math.max(digitCount, padWidth() - check) + check;
+
+    return withSeparators ? separatedLength(length) : length;
+  }
+
+  /**
+   * Writes the encoding of the digit values digits[from, to), most significant first, into dst
+   * starting at off and returns the number of bytes written. This is the layout LongEncoder
+   * writes while it produces digits: right-to-left, with padding, sign, check character and
+   * separators placed in the same pass and the Luhn sum kept as it goes.
+   *
+   * With a format template, the characters are written where they end up if there are no
+   * separators to their right, and FormatTemplate.spread moves them into place.
+   */
+  protected int writeEncoding (byte [] digits, int from, int to, boolean isNegative,
+                               boolean withSeparators, byte [] dst, int off) {
+    FormatTemplate template = template();
+
+    if (withSeparators && null != template) {
+      int length = encodedLength(to - from, isNegative, false);
+
+      writeEncoding(digits, from, to, isNegative, false, dst, off + template.separators(length));
+      return template.spread(dst, off, length);
+    }
+
+    byte [] characters = this.settings.tables.encodeTable;
+    int [] luhn = this.settings.tables.luhnDoubled;
+    int check = checkedEncoder() ? 1 : 0;
+    int digitCount = to - from;
+    int bodyLength = Math.max(digitCount, padWidth() - check);  // digits plus zero padding
+    int length = (isNegative ? 1 : 0) + bodyLength + check;
+    int segment = withSeparators ? segmentLength() : length;   // a single segment has no separators
+    byte separator = (byte) separator();
+    int end = off + length + (length - 1) / segment;
+    int untilSeparator = (length - 1) % segment + 1;           // characters left in the last segment
+    int pos = end;
+    int checkPos = -1;
+    int sum = 0;
+
+    if (check > 0) {
+      checkPos = --pos;
+      if (--untilSeparator == 0 && pos > off) {
+        dst[--pos] = separator;
+        untilSeparator = segment;
+      }
+    }
+
+    for (int i = 0; i < bodyLength; i++) {
+      int digit = (i < digitCount) ? digits[to - 1 - i] & 0xff : 0;  // then pad with 0
+
+      if (check > 0) {
+        sum += ((i & 1) == 0) ? luhn[digit] : digit;  // Luhn factor is 2 for the right-most digit
+      }
+      dst[--pos] = characters[digit];
+      if (--untilSeparator == 0 && pos > off) {
+        dst[--pos] = separator;
+        untilSeparator = segment;
+      }
+    }
+
+    if (isNegative) {
+      dst[--pos] = NEGATIVE_SIGN;
+    }
+
+    if (check > 0) {
+      dst[checkPos] = characters[checkCodePoint(sum)];
+    }
+
+    return end - off;
+  }
+
+  /**
+   * This thread's one-long array to decode into. It is only good until the next decode on the
+   * same thread.
+   */
+  protected static long [] decodedValue () {
+    return DECODED_VALUE.get();
+  }
+
+  /**
+   * The remaining bytes of src as ISO-8859-1 characters, for decoding without a String.
+   */
+  protected static CharSequence latin1View (ByteBuffer src) {
+    return new Latin1Bytes(src, src.position(), src.remaining());
+  }
+
+  /**
+   * Throws the exception decoding src[start, end) would have thrown for a status other than
+   * DECODED. Never returns. If stacklessExceptions, that is the preallocated exception for the
+   * status, and src isn't looked at again.
+   */
+  protected void throwDecodeFailure (int status, CharSequence src, int start, int end) throws EncodedIdException {
+    if (stacklessExceptions()) {
+      throwPreallocated(status);
+    }
+
+    String s = src.subSequence(start, end).toString();
+
+    switch (status) {
+      case MISPLACED_SEPARATOR:
+        throwMisplacedSeparator(s);
+      case INVALID_CHECK_CHARACTER:
+        throwInvalidCheckCharacter(s);
+      case OUT_OF_RANGE:
+        throwOutOfRange(s);
+      case INVALID_CHARACTER:
+        boolean first = true;
+        for (int i = 0; i < s.length(); i++) {
+          char c = s.charAt(i);
+          if (isSeparator(c) || IGNORABLE == valueOf(c)) {
+            continue;
+          }
+          if (! (first && c == NEGATIVE_SIGN)) {
+            decodeChar(c);  // throws for the first character not in the alphabet
+          }
+          first = false;
+        }
+      default:
+        throwInvalidCharacter(' '); // Nothing but a sign, separators or check character.
+    }
+  }
+
+  /**
+   * Reads the digit values of the encoding in src[start, end) into digits, which must have
+   * room for end - start values. Separators are skipped, the first other character may be the
+   * negative sign and, if isCheckedEncoder, the right-most character is checked against a Luhn
+   * sum kept while reading. The check character is not stored. If strictSeparators, every
+   * separator must be exactly where addSeparators would put it, and nowhere else. So must the
+   * separators of a format template, strict or not. With tolerantDecoding, blanks and dashes
+   * are skipped too, except where separators have fixed places, since they would take one.
+   *
+   * Returns the number of digits, negated if the encoding has the negative sign.
+   */
+  protected int scanDigits (CharSequence src, int start, int end, byte [] digits) throws EncodedIdException {
+    boolean skipSeparators = useSeparator();
+    FormatTemplate template = skipSeparators ? template() : null;
+    boolean strict = skipSeparators && strictSeparators() && null == template;
+    char separator = separator();
+    int segment = segmentLength();
+    int untilSeparator = segment;  // characters left before a strict separator is due
+    boolean isNegative = false;
+    int count = 0;
+    int sum = 0;       // Luhn sum with factor 2 on the last character read
+    int otherSum = 0;  // Luhn sum with factor 1 on the last character read
+
+    for (int i = start; i < end; i++) {
+      char c = src.charAt(i);
+
+      if (null != template) {
+        char expected = template.separatorAt(end - 1 - i);
+
+        if (0 != expected || template.isSeparator(c)) {
+          if (c != expected || i == start) {
+            throwDecodeFailure(MISPLACED_SEPARATOR, src, start, end); // only exactly where the template puts one
+          }
+          continue;
+        }
+      } else if (skipSeparators && c == separator) {
+        if (strict && untilSeparator != 0) {
+          throwDecodeFailure(MISPLACED_SEPARATOR, src, start, end);
+        }
+        untilSeparator = segment;
+        continue;
+      }
+      if (strict && untilSeparator-- == 0) {
+        throwDecodeFailure(MISPLACED_SEPARATOR, src, start, end); // a separator was due here
+      }
+      if (c == NEGATIVE_SIGN && count == 0 && ! isNegative) {
+        isNegative = true;
+        continue;
+      }
+
+      int value = valueOf(c);
+      if (value < 0) {
+        if (IGNORABLE == value && ! strict && null == template) {
+          continue;
+        }
+        throwDecodeFailure(INVALID_CHARACTER, src, start, end);
+      }
+      int t = sum;
+      sum = otherSum + luhnDoubled(value);
+      otherSum = t + value;
+      digits[count++] = (byte) value;
+    }
+
+    if (strict && untilSeparator == segment) {
+      throwDecodeFailure(MISPLACED_SEPARATOR, src, start, end); // trailing separator
+    }
+
+    // The check character has factor 1, so with it the sum must be divisible by n.
+
+    if (checkedEncoder() && count > 1) {
+      count--;  // The check character isn't a digit.
+      if (otherSum % numberOfValidInputCharacters() != 0) {
+        throwDecodeFailure(INVALID_CHECK_CHARACTER, src, start, end);
+        // !!! Never returns here !!!
+      }
+    } else if (checkedEncoder()) {
+      count = 0;
+    }
+
+    if (0 == count) {
+      throwDecodeFailure(NO_DIGITS, src, start, end);
+      // Never returns to here
+    }
+    return isNegative ? -count : count;
+  }
+
   /**
    * This method will add separators to the encoded string.
    * Whether it does anything at all depends on isUseSeparator being true.
-   * Separators are inserted every this.segmentSize characters.
+   * Separators are inserted every this.segmentSize characters, or where the format template
+   * puts them, in a single pass.
    * Separators are entirely syntactic sugar. There is no semantic at all.
    */
   protected String addSeparators (String s) {
-    StringBuilder sb = new StringBuilder(s);
+    if (! useSeparator()) {
+      return s;
+    }
+
+    byte [] characters = s.getBytes(StandardCharsets.ISO_8859_1);
+    byte [] separated = new byte[separatedLength(characters.length)];
 
-    if (useSeparator()) {
-      for (int i = segmentLength(); i < sb.length(); i += segmentLength() + 1) {
-        sb.insert(i, this.separator());
+    FormatTemplate template = template();
+
+    if (null != template) {
+      System.arraycopy(characters, 0, separated, separated.length - characters.length, characters.length);
+      template.spread(separated, 0, characters.length);
+    } else {
+      for (int i = 0, pos = 0; i < characters.length; i++) {
+        if (i > 0 && i % segmentLength() == 0) {
+          separated[pos++] = (byte) separator();
+        }
+        separated[pos++] = characters[i];
       }
     }
-
-    return sb.toString();
+    return new String(separated, StandardCharsets.ISO_8859_1);
   }
 
   /*
@@ -226,8 +691,11 @@ public abstract class EncodedId implements IEncodedId {
    * https://en.wikipedia.org/wiki/Luhn_mod_N_algorithm.
    * I've attempted to keep the implementation as close as reasonable to the java implementation
    * given on the Wikipedia page. I have made some changes to accommodate integration into
-   * the EncodedId class. We could probably make some efficiency gains by computing the checksum
-   * while encoding or decoding, but the logic would be a bit more obscure.
+   * the EncodedId class.
+   *
+   * The encoders don't call generateCheckCharacter or validateCheckCharacter. They keep the
+   * same sum as they produce or consume digits, using luhnDoubled and checkCodePoint, so a
+   * checked encoding costs no second pass. These two remain as the reference implementation.
    */
 
   /**
@@ -292,6 +760,31 @@ public abstract class EncodedId implements IEncodedId {
    * Helper methods for the check digit stuff - aids in mapping to the canonical implementations.
    */
 
+  /**
+   * The Luhn addend for a code point that is doubled, with its digits summed in base n.
+   * Since codePoint < n, the doubled value is < 2n and the digit sum is just a subtraction,
+   * but the hot loops look it up in a table built with the alphabet.
+   */
+  protected int luhnDoubled (int codePoint) {
+    return this.settings.tables.luhnDoubled[codePoint];
+  }
+
+  /**
+   * The whole luhnDoubled mapping, for loops that want to hold it in a local.
+   */
+  protected int [] luhnTable () {
+    return this.settings.tables.luhnDoubled;
+  }
+
+  /**
+   * The check code point that makes a running Luhn sum divisible by n.
+   */
+  protected int checkCodePoint (int sum) {
+    int n = numberOfValidInputCharacters();
+
+    return (n - sum % n) % n;
+  }
+
   protected int numberOfValidInputCharacters () {
     return numberBase();
   }
@@ -301,7 +794,90 @@ public abstract class EncodedId implements IEncodedId {
   }
 
   protected int codePointFromCharacter (char encodedChar) throws EncodedIdException {
-    return alphabet().indexOf(encodedChar);
+    return valueOf(encodedChar);
+  }
+
+  /**
+   * An encoder's configuration, in final fields, with what is derived from it: the alphabet
+   * tables, the decode table and the compiled format template. It never changes, so a compiled
+   * codec keeps the one it was built with, and RangeTable and the specialized class can tell by
+   * identity whether they were built for the current one. Setters replace it with a changed copy.
+   */
+  static final class Settings {
+    final String alphabet;
+    final String characterSet;
+    final AlphabetTables tables;
+    final int [] decodeTable;       // tables.decodeTable, or its tolerant version if tolerantDecoding
+    final char separator;
+    final boolean useSeparator;
+    final boolean strictSeparators;
+    final int padWidth;
+    final int segmentLength;
+    final FormatTemplate template;  // replaces segmentLength if set
+    final boolean tolerantDecoding;
+    final boolean checkedEncoder;
+    final boolean stacklessExceptions;
+    final long minId;
+    final long maxId;
+    final boolean fixedWidth;       // UUID encoders
+    final boolean specialized;      // long encoders from here on
+    final boolean twoDigitTables;
+    final boolean unsigned;
+    final int rangeTableLimit;
+
+    /**
+     * Takes the builder's values as they are; EncodedId checks them first. Uses shared if it
+     * holds the tables for the builder's alphabet.
+     */
+    Settings (IEncodedId.Builder builder, AlphabetTables shared) throws EncodedIdException {
+      this.alphabet = builder.getAlphabet();
+      this.characterSet = builder.getCharacterSet();
+      this.tables = (null != shared && shared.alphabet.equals(this.alphabet)) ? shared : new AlphabetTables(this.alphabet);
+      this.tolerantDecoding = builder.isTolerantDecoding();
+      this.decodeTable = this.tolerantDecoding ? this.tables.tolerantDecodeTable() : this.tables.decodeTable;
+      this.separator = builder.getSeparator();
+      this.useSeparator = builder.useSeparator();
+      this.strictSeparators = builder.isStrictSeparators();
+      this.padWidth = builder.getPadWidth();
+      this.segmentLength = builder.getSegmentLength();
+      this.template = (null == builder.getFormatTemplate())
+                        ? null : FormatTemplate.compile(builder.getFormatTemplate(), this.alphabet);
+      this.checkedEncoder = builder.isCheckedEncoder();
+      this.stacklessExceptions = builder.isStacklessExceptions();
+      this.minId = builder.getMinId();
+      this.maxId = builder.getMaxId();
+      this.fixedWidth = builder.isFixedWidth();
+      this.specialized = builder.isSpecialized();
+      this.twoDigitTables = builder.isTwoDigitTables();
+      this.unsigned = builder.isUnsigned();
+      this.rangeTableLimit = builder.getRangeTableLimit();
+    }
+
+    /**
+     * A builder with these values, set without the builder's checks, which a changed copy
+     * would otherwise have to pass in whatever order they are set.
+     */
+    Builder toBuilder () {
+      Builder b = new Builder(this.alphabet, this.characterSet);
+
+      b.separator = this.separator;
+      b.useSeparator = this.useSeparator;
+      b.strictSeparators = this.strictSeparators;
+      b.padWidth = this.padWidth;
+      b.segmentLength = this.segmentLength;
+      b.formatTemplate = (null == this.template) ? null : this.template.template;
+      b.tolerantDecoding = this.tolerantDecoding;
+      b.checkedEncoder = this.checkedEncoder;
+      b.stacklessExceptions = this.stacklessExceptions;
+      b.minId = this.minId;
+      b.maxId = this.maxId;
+      b.fixedWidth = this.fixedWidth;
+      b.specialized = this.specialized;
+      b.twoDigitTables = this.twoDigitTables;
+      b.unsigned = this.unsigned;
+      b.rangeTableLimit = this.rangeTableLimit;
+      return b;
+    }
   }
 
   /**
@@ -312,12 +888,22 @@ public abstract class EncodedId implements IEncodedId {
     private String alphabet;
     private String characterSet;
     private boolean checkedEncoder = false;
+    private boolean stacklessExceptions = false;
     private char separator = '-';
     private boolean useSeparator = false;
+    private boolean strictSeparators = false;
     private int segmentLength = DEFAULT_SEGMENT_LENGTH;
+    private String formatTemplate = null;
+    private boolean tolerantDecoding = false;
     private int padWidth = 0;
     private long minId = Long.MIN_VALUE;
     private long maxId = Long.MAX_VALUE;
+    private boolean fixedWidth = false;
+    private boolean specialized = false;
+    private boolean twoDigitTables = false;
+    private boolean unsigned = false;
+    private int rangeTableLimit = 0;
+    private boolean vectorValidation = false;
 
 
     public Builder () {
@@ -383,6 +969,17 @@ public abstract class EncodedId implements IEncodedId {
       return this.useSeparator;
     }
 
+    @Override
+    public Builder strictSeparators (boolean strictSeparators) {
+      this.strictSeparators = strictSeparators;
+      return this;
+    }
+
+    @Override
+    public boolean isStrictSeparators () {
+      return this.strictSeparators;
+    }
+
     @Override
     public Builder segmentLength(int segmentLength) {
       this.segmentLength = segmentLength;
@@ -399,6 +996,28 @@ public abstract class EncodedId implements IEncodedId {
       return this.segmentLength;
     }
 
+    @Override
+    public Builder formatTemplate (String formatTemplate) {
+      this.formatTemplate = formatTemplate;
+      return this;
+    }
+
+    @Override
+    public String getFormatTemplate () {
+      return this.formatTemplate;
+    }
+
+    @Override
+    public Builder tolerantDecoding (boolean tolerantDecoding) {
+      this.tolerantDecoding = tolerantDecoding;
+      return this;
+    }
+
+    @Override
+    public boolean isTolerantDecoding () {
+      return this.tolerantDecoding;
+    }
+
     @Override
     public Builder checkedEncoder(boolean checkedEncoder) {
       this.checkedEncoder = checkedEncoder;
@@ -410,6 +1029,17 @@ public abstract class EncodedId implements IEncodedId {
       return this.checkedEncoder;
     }
 
+    @Override
+    public Builder stacklessExceptions (boolean stacklessExceptions) {
+      this.stacklessExceptions = stacklessExceptions;
+      return this;
+    }
+
+    @Override
+    public boolean isStacklessExceptions () {
+      return this.stacklessExceptions;
+    }
+
     @Override
     public Builder padWidth (int padWidth) {
       this.padWidth = padWidth;
@@ -440,6 +1070,83 @@ public abstract class EncodedId implements IEncodedId {
 
       return this;
     }
+
+    @Override
+    public Builder fixedWidth (boolean fixedWidth) {
+      this.fixedWidth = fixedWidth;
+      return this;
+    }
+
+    @Override
+    public boolean isFixedWidth () {
+      return this.fixedWidth;
+    }
+
+    @Override
+    public Builder specialized (boolean specialized) {
+      this.specialized = specialized;
+      return this;
+    }
+
+    @Override
+    public boolean isSpecialized () {
+      return this.specialized;
+    }
+
+    @Override
+    public Builder twoDigitTables (boolean twoDigitTables) {
+      this.twoDigitTables = twoDigitTables;
+      return this;
+    }
+
+    @Override
+    public boolean isTwoDigitTables () {
+      return this.twoDigitTables;
+    }
+
+    @Override
+    public Builder unsigned (boolean unsigned) {
+      this.unsigned = unsigned;
+      return this;
+    }
+
+    @Override
+    public boolean isUnsigned () {
+      return this.unsigned;
+    }
+
+    @Override
+    public Builder rangeTableLimit (int rangeTableLimit) {
+      checkRangeTableLimit(rangeTableLimit);
+      this.rangeTableLimit = rangeTableLimit;
+      return this;
+    }
+
+    @Override
+    public int getRangeTableLimit () {
+      return this.rangeTableLimit;
+    }
+
+    @Override
+    public Builder vectorValidation (boolean vectorValidation) {
+      this.vectorValidation = vectorValidation;
+      return this;
+    }
+
+    @Override
+    public boolean isVectorValidation () {
+      return this.vectorValidation;
+    }
+
+    @Override
+    public ILongEncoder compileLongEncoder () throws EncodedIdException {
+      return new LongCodec(this);
+    }
+
+    @Override
+    public IUuidEncoder compileUuidEncoder () throws EncodedIdException {
+      return new UuidCodec(this);
+    }
   }
 
 
@@ -0,0 +1,155 @@
+package me.creighton.encodedid.impl;
+
+import me.creighton.encodedid.EncodedIdException;
+
+import java.util.Arrays;
+
+import static me.creighton.encodedid.EncodedIdException.throwInvalidFormatTemplate;
+import static me.creighton.encodedid.EncodingConstants.NEGATIVE_SIGN;
+
+/*
+
+  A layout for separators like "XXX-XXXX" or "XXXX.XXXX.XX": each X is a character of the
+  encoding, sign and check character included, and anything else is a separator. Groups are
+  counted from the right, so the last group of the template is always the last group of the
+  encoding. A shorter encoding leaves out the groups on the left. A longer one repeats the
+  left-most group, with the left-most separator, as often as it needs.
+
+  The template is compiled into a table indexed by position from the right of the encoding,
+  separators included: the separator that goes there, or 0 for a character. Encoders use it
+  to place characters and separators in one pass, and decoders to accept separators exactly
+  there and nowhere else.
+
+ */
+final class FormatTemplate {
+
+  static final char MARK = 'X';  // where a character goes
+
+  final String template;
+  private final char [] layout;           // layout[d]: the separator with d positions to its right, or 0
+  private final int [] separatorsIn;      // separatorsIn[n]: the separators among the last n characters
+  private final boolean [] isSeparator;   // by Latin-1 character
+  private final int characters;           // MARKs in the template
+  private final int group;                // characters in the left-most group...
+  private final char leftSeparator;       // ...and the separator to its right, or 0 if there are none
+
+  private FormatTemplate (String template) {
+    int length = template.length();
+
+    this.template = template;
+    this.layout = new char[length];
+    this.isSeparator = new boolean[256];
+
+    int [] separatorsIn = new int[length + 1];
+    int k = 0;
+    int separators = 0;
+
+    for (int d = 0; d < length; d++) {
+      char c = template.charAt(length - 1 - d);
+
+      if (c == MARK) {
+        separatorsIn[++k] = separators;
+      } else {
+        this.layout[d] = c;
+        this.isSeparator[c] = true;
+        separators++;
+      }
+    }
+    this.characters = k;
+    this.separatorsIn = Arrays.copyOf(separatorsIn, k + 1);
+
+    int group = 0;
+
+    while (template.charAt(group) == MARK && group < length - 1) {
+      group++;
+    }
+    this.group = (separators == 0) ? this.characters : group;
+    this.leftSeparator = (separators == 0) ? 0 : template.charAt(group);
+  }
+
+  /**
+   * The compiled template, after checking that it starts and ends with a character, has no two
+   * separators in a row, and that no separator is the negative sign, outside Latin-1 or in the
+   * alphabet.
+   */
+  static FormatTemplate compile (String template, String alphabet) throws EncodedIdException {
+    if (null == template || template.isEmpty()
+        || template.charAt(0) != MARK || template.charAt(template.length() - 1) != MARK) {
+      throwInvalidFormatTemplate(template, alphabet);
+    }
+    for (int i = 1; i < template.length(); i++) {
+      char c = template.charAt(i);
+
+      if (c != MARK && (c > 0xff || c == NEGATIVE_SIGN || alphabet.indexOf(c) >= 0
+                        || template.charAt(i - 1) != MARK)) {
+        throwInvalidFormatTemplate(template, alphabet);
+      }
+    }
+    return new FormatTemplate(template);
+  }
+
+  /**
+   * Indicates if none of the separators is in alphabet.
+   */
+  boolean fits (String alphabet) {
+    for (int i = 0; i < alphabet.length(); i++) {
+      char c = alphabet.charAt(i);
+
+      if (c < this.isSeparator.length && this.isSeparator[c]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * The number of separators in an encoding of n characters.
+   */
+  int separators (int n) {
+    if (n <= this.characters) {
+      return this.separatorsIn[n];
+    }
+    int repeats = (0 == this.leftSeparator) ? 0 : (n - this.characters + this.group - 1) / this.group;
+
+    return this.separatorsIn[this.characters] + repeats;
+  }
+
+  /**
+   * The length of an encoding of n characters once separators are added.
+   */
+  int length (int n) {
+    return n + separators(n);
+  }
+
+  /**
+   * The separator with d characters and separators to its right, or 0 if a character goes there.
+   */
+  char separatorAt (int d) {
+    if (d < this.layout.length) {
+      return this.layout[d];
+    }
+    return ((d - this.layout.length) % (this.group + 1) == 0) ? this.leftSeparator : 0;
+  }
+
+  boolean isSeparator (char c) {
+    return c < this.isSeparator.length && this.isSeparator[c];
+  }
+
+  /**
+   * Lays out the n characters at dst[off + separators(n), off + length(n)) with their separators,
+   * in place, and returns length(n). Characters only ever move left, so going left to right
+   * none is overwritten before it has moved.
+   */
+  int spread (byte [] dst, int off, int n) {
+    int length = length(n);
+    int end = off + length;
+    int from = end - n;
+
+    for (int pos = off; pos < end; pos++) {
+      char separator = separatorAt(end - 1 - pos);
+
+      dst[pos] = (0 == separator) ? dst[from++] : (byte) separator;
+    }
+    return length;
+  }
+}
@@ -0,0 +1,198 @@
+package me.creighton.encodedid.impl;
+
+import me.creighton.encodedid.EncodedIdException;
+import me.creighton.encodedid.IEncodedId;
+import me.creighton.encodedid.IIntEncoder;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.OptionalInt;
+
+import static me.creighton.encodedid.Utilities.getRandomLong;
+import static me.creighton.encodedid.EncodingConstants.*;
+
+/*
+
+  LongEncoder for int ids. Encoding is LongEncoder's own conversion, since an int is a
+  long, and so is decoding, with the limits of an int in place of a long's. The layout
+  (padding, sign, check character and separators) follows the same rules, so an int
+  encodes exactly as the same value does as a long, and every encoding of an int decodes
+  the same way with either.
+
+  An int has no more digits than 2^31, so the longest encoding, and the longest input decode
+  will read, are shorter than a long's.
+
+ */
+public class IntEncoder extends EncodedId implements IIntEncoder {
+
+  public IntEncoder (IEncodedId.Builder builder) {
+    super(builder);
+  }
+
+  // Public Work Methods
+
+  // Selects a random int between minId and maxId, inclusive.
+  @Override
+  public String encodeId () throws EncodedIdException {
+    long min = Math.max(getMinId(), Integer.MIN_VALUE);
+    long max = Math.min(getMaxId(), Integer.MAX_VALUE);
+
+    return encodeId((int) getRandomLong(min, max + 1));
+  }
+
+  @Override
+  public String encodeId (int id) throws EncodedIdException {
+    return encode(id, useSeparator());
+  }
+
+  @Override
+  public String encodeIdWithoutSeparator (int id) throws EncodedIdException {
+    return encode(id, false);
+  }
+
+  @Override
+  public int encodeTo (int id, byte [] dst, int off) throws EncodedIdException {
+    boolean withSeparators = useSeparator();
+    int length = encodedLength(digitCount(Math.abs((long) id)), id < 0, withSeparators);
+
+    Objects.checkFromIndexSize(off, length, dst.length);
+    return encodeInto(id, withSeparators, dst, off);
+  }
+
+  @Override
+  public int encodeTo (int id, ByteBuffer dst) throws EncodedIdException {
+    boolean withSeparators = useSeparator();
+    int length = encodedLength(digitCount(Math.abs((long) id)), id < 0, withSeparators);
+
+    if (dst.remaining() < length) {
+      throw new BufferOverflowException();
+    }
+    if (dst.hasArray()) {
+      encodeInto(id, withSeparators, dst.array(), dst.arrayOffset() + dst.position());
+    } else {
+      byte [] buffer = new byte[length];
+      encodeInto(id, withSeparators, buffer, 0);
+      dst.put(dst.position(), buffer);
+    }
+    dst.position(dst.position() + length);
+    return length;
+  }
+
+  @Override
+  public int maxEncodedLength () {
+    return encodedLength(tables().maxIntDigits, true, useSeparator());
+  }
+
+  protected String encode (int id, boolean withSeparators) {
+    byte [] buffer = new byte[encodedLength(tables().maxIntDigits, true, withSeparators)];
+    int length = encodeInto(id, withSeparators, buffer, 0);
+
+    return new String(buffer, 0, length, StandardCharsets.ISO_8859_1);
+  }
+
+  /**
+   * Writes the encoding of id into dst starting at off and returns the number of bytes written.
+   * An int is a long, so this is LongConversion.encode with the settings, the same code
+   * LongEncoder.encodeDigitsInto runs; a signed long encoder gives the same encoding, two digits
+   * at a time if twoDigitTables. Its 64-bit division splits off the first chunk, which for most
+   * bases is all but one digit of an int, and the rest is 32-bit arithmetic.
+   */
+  protected int encodeInto (int id, boolean withSeparators, byte [] dst, int off) {
+    Settings s = settings();
+    AlphabetTables tables = s.tables;
+    AlphabetTables.TwoDigitTables pairs = encodePairs();
+
+    return LongConversion.encode(id, withSeparators, dst, off, tables, pairs,
+        tables.numberBase, tables.digitShift, (null == pairs) ? tables.chunkDigits : pairs.chunkDigits,
+        (null == pairs) ? tables.chunkPower : pairs.chunkPower, s.checkedEncoder,
+        s.padWidth, s.segmentLength, (byte) s.separator, false, s.template);
+  }
+
+  @Override
+  public int decodeId (String encodedId) throws EncodedIdException {
+    if (null == encodedId) {
+      // Invalid encodedId
+      throwDecodeFailure(NO_DIGITS, "", 0, 0); // null has no digits
+      // Never returns to here
+    }
+    return decodeId(encodedId, 0, encodedId.length());
+  }
+
+  @Override
+  public int decodeId (ByteBuffer src) throws EncodedIdException {
+    int id = decodeId(latin1View(src), 0, src.remaining());
+
+    src.position(src.limit());
+    return id;
+  }
+
+  @Override
+  public int decodeId (CharSequence src, int start, int end) throws EncodedIdException {
+    Objects.checkFromToIndex(start, end, src.length());
+
+    long [] out = decodedValue();
+    int status = decode(src, start, end, out, 0);
+
+    if (status != DECODED) {
+      throwDecodeFailure(status, src, start, end);
+      // Never returns to here
+    }
+    return (int) out[0];
+  }
+
+  @Override
+  public int tryDecodeId (CharSequence src, int start, int end, int [] out, int index) {
+    Objects.checkFromToIndex(start, end, src.length());
+    Objects.checkIndex(index, out.length);
+
+    long [] value = decodedValue();
+    int status = decode(src, start, end, value, 0);
+
+    if (status == DECODED) {
+      out[index] = (int) value[0];
+    }
+    return status;
+  }
+
+  /**
+   * tryDecodeId for a whole CharSequence. Like LongEncoder's, it decodes into this thread's
+   * decodedValue, so a failure allocates nothing.
+   */
+  @Override
+  public OptionalInt tryDecodeId (CharSequence src) {
+    if (null == src) {
+      return OptionalInt.empty();
+    }
+
+    long [] out = decodedValue();
+
+    return (decode(src, 0, src.length(), out, 0) == DECODED) ? OptionalInt.of((int) out[0]) : OptionalInt.empty();
+  }
+
+  /**
+   * LongEncoder.decodeDigits for an int: LongConversion.decode with the limits of an int, so
+   * the same rules for separators, sign and check character, and the same status for every
+   * input that is a valid long, except that values outside the range of an int are
+   * OUT_OF_RANGE. The int goes into out[index], which is a long so that callers can share
+   * decodedValue.
+   */
+  protected int decode (CharSequence src, int start, int end, long [] out, int index) {
+    if (end - start > maxDecodeLength(tables().maxIntDigits)) {
+      return OUT_OF_RANGE;
+    }
+
+    Settings s = settings();
+    AlphabetTables tables = s.tables;
+    FormatTemplate template = s.useSeparator ? s.template : null;
+    int status = LongConversion.decode(src, start, end, out, index, s.decodeTable, tables.luhnDoubled,
+        tables.intLimits, tables.numberBase, tables.chunkDigits, s.checkedEncoder, s.useSeparator,
+        s.useSeparator && s.strictSeparators && null == template, s.separator, s.segmentLength, false, template);
+
+    if (status == DECODED && out[index] > Integer.MAX_VALUE) {
+      return OUT_OF_RANGE;  // intLimits allow a magnitude of 2^31, which only a negative id has
+    }
+    return status;
+  }
+}
@@ -0,0 +1,61 @@
+package me.creighton.encodedid.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/*
+
+  A read-only view of bytes as ISO-8859-1 characters, so the decoders can read
+  an encoding straight out of a ByteBuffer without building a String. Every
+  alphabet is Latin-1 (and all of those in EncodingConstants are ASCII), so a
+  byte is a character. The view reads the buffer with absolute gets and never
+  moves its position.
+
+ */
+final class Latin1Bytes implements CharSequence {
+
+  private final ByteBuffer buffer;
+  private final int offset;
+  private final int length;
+
+  Latin1Bytes (ByteBuffer buffer, int offset, int length) {
+    this.buffer = buffer;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  @Override
+  public int length () {
+    return this.length;
+  }
+
+  @Override
+  public char charAt (int index) {
+    return (char) (this.buffer.get(this.offset + index) & 0xff);
+  }
+
+  /**
+   * The eight bytes from index, the first in the low byte; see AsciiWords.
+   */
+  long word (int index) {
+    long word = this.buffer.getLong(this.offset + index);
+
+    return (this.buffer.order() == ByteOrder.BIG_ENDIAN) ? Long.reverseBytes(word) : word;
+  }
+
+  @Override
+  public CharSequence subSequence (int start, int end) {
+    Objects.checkFromToIndex(start, end, this.length);
+    return new Latin1Bytes(this.buffer, this.offset + start, end - start);
+  }
+
+  @Override
+  public String toString () {
+    byte [] bytes = new byte[this.length];
+
+    this.buffer.get(this.offset, bytes);
+    return new String(bytes, StandardCharsets.ISO_8859_1);
+  }
+}
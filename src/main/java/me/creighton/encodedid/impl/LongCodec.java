@@ -0,0 +1,145 @@
+package me.creighton.encodedid.impl;
+
+import me.creighton.encodedid.EncodedIdException;
+import me.creighton.encodedid.IEncodedId;
+import me.creighton.encodedid.ILongEncoder;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.OptionalLong;
+
+/*
+  An immutable ILongEncoder that is safe to share between threads; see CompiledCodec.
+ */
+public final class LongCodec extends CompiledCodec implements ILongEncoder {
+
+  private final LongEncoder encoder;
+
+  public LongCodec (IEncodedId.Builder builder) {
+    this(builder, null);
+  }
+
+  /**
+   * Uses shared if it holds the tables for the builder's alphabet; see CodecCache.
+   */
+  LongCodec (IEncodedId.Builder builder, AlphabetTables shared) {
+    this(new LongEncoder(builder, shared));
+  }
+
+  private LongCodec (LongEncoder encoder) {
+    super(encoder);
+    this.encoder = encoder;
+    if (settings().specialized) {
+      encoder.specialize();  // falls back to the generic methods if it can't
+    }
+  }
+
+  /**
+   * Indicates if this codec runs a class generated for its configuration.
+   */
+  public boolean isSpecialized () {
+    return this.encoder.isSpecialized();
+  }
+
+  @Override
+  public boolean twoDigitTables () {
+    return settings().twoDigitTables;
+  }
+
+  @Override
+  public void twoDigitTables (boolean twoDigitTables) {
+    throwImmutable("twoDigitTables");
+  }
+
+  @Override
+  public boolean unsigned () {
+    return settings().unsigned;
+  }
+
+  @Override
+  public void unsigned (boolean unsigned) {
+    throwImmutable("unsigned");
+  }
+
+  @Override
+  public int rangeTableLimit () {
+    return settings().rangeTableLimit;
+  }
+
+  @Override
+  public void rangeTableLimit (int rangeTableLimit) {
+    throwImmutable("rangeTableLimit");
+  }
+
+  @Override
+  public long rangeTableBytes () {
+    return this.encoder.rangeTableBytes();
+  }
+
+  // Public Work Methods
+
+  @Override
+  public String encodeId () throws EncodedIdException {
+    return this.encoder.encodeId();
+  }
+
+  @Override
+  public String encodeId (long id) throws EncodedIdException {
+    return this.encoder.encodeId(id);
+  }
+
+  @Override
+  public String encodeIdWithoutSeparator (long id) throws EncodedIdException {
+    return this.encoder.encodeIdWithoutSeparator(id);
+  }
+
+  @Override
+  public long decodeId (String encodedId) throws EncodedIdException {
+    return this.encoder.decodeId(encodedId);
+  }
+
+  @Override
+  public long decodeId (CharSequence src, int start, int end) throws EncodedIdException {
+    return this.encoder.decodeId(src, start, end);
+  }
+
+  @Override
+  public long decodeId (ByteBuffer src) throws EncodedIdException {
+    return this.encoder.decodeId(src);
+  }
+
+  @Override
+  public int tryDecodeId (CharSequence src, int start, int end, long [] out, int index) {
+    return this.encoder.tryDecodeId(src, start, end, out, index);
+  }
+
+  @Override
+  public OptionalLong tryDecodeId (CharSequence src) {
+    return this.encoder.tryDecodeId(src);
+  }
+
+  @Override
+  public int encodeTo (long id, byte [] dst, int off) throws EncodedIdException {
+    return this.encoder.encodeTo(id, dst, off);
+  }
+
+  @Override
+  public int encodeTo (long id, ByteBuffer dst) throws EncodedIdException {
+    return this.encoder.encodeTo(id, dst);
+  }
+
+  @Override
+  public int maxEncodedLength () {
+    return this.encoder.maxEncodedLength();
+  }
+
+  @Override
+  public void encodeAll (long [] ids, String [] out) throws EncodedIdException {
+    this.encoder.encodeAll(ids, out);
+  }
+
+  @Override
+  public BitSet decodeAll (String [] in, long [] out) {
+    return this.encoder.decodeAll(in, out);
+  }
+}
@@ -0,0 +1,483 @@
+package me.creighton.encodedid.impl;
+
+import static me.creighton.encodedid.EncodingConstants.NEGATIVE_SIGN;
+import static me.creighton.encodedid.IEncodedId.*;
+import static me.creighton.encodedid.impl.AlphabetTables.OVERFLOW;
+
+/*
+
+  The conversions LongEncoder does, as static methods that take the configuration as
+  arguments. LongEncoder passes its settings. The class LongSpecializer generates passes
+  the same settings from static finals, which the JIT treats as constants once it inlines
+  these methods there: the base becomes a constant divisor and the branches for settings
+  that are off fold away. There is one body for both. That only pays if the JIT inlines it,
+  which it does for a hot caller if the method has at most 325 bytes of bytecode (the default
+  FreqInlineSize), so encode and decode are kept under that with javap -c. decodePairs isn't,
+  and the generated class runs it as it is.
+
+  Characters are written without separators and then moved into place, a segment at a
+  time, by spread or FormatTemplate.spread, so the digit loops have no separator tests.
+
+ */
+final class LongConversion {
+
+  private LongConversion () {
+  }
+
+  /**
+   * Writes the encoding of id into dst starting at off and returns the number of bytes written.
+   *
+   * The length of the encoding is worked out first, so digits can be written right-to-left
+   * straight into their final positions, and the Luhn sum is kept as the digits are produced.
+   * There is no StringBuilder, no reverse and no rescan of the result.
+   *
+   * Rather than a 64-bit division per digit, the id is split into chunks of chunkDigits digits,
+   * each small enough to split into digits with 32-bit arithmetic; see writeChunks. A power of
+   * two base needs no division at all, just masks and shifts. If pairs isn't null, the digits
+   * are produced two at a time from its tables, and chunkDigits and chunkPower are its own.
+   *
+   * If withSeparators, they are placed by template if there is one, and after every
+   * segmentLength characters, counted from the left, if not.
+   */
+  static int encode (long id, boolean withSeparators, byte [] dst, int off,
+                     AlphabetTables tables, AlphabetTables.TwoDigitTables pairs,
+                     int base, int shift, int chunkDigits, int chunkPower, boolean checked,
+                     int padWidth, int segmentLength, byte separator, boolean unsigned, FormatTemplate template) {
+    boolean isNegative = ! unsigned && id < 0;
+    long magnitude = isNegative ? -id : id;   // treated as unsigned, so Long.MIN_VALUE is 2^63
+    int check = checked ? 1 : 0;
+    int digitCount = digitCount(tables, magnitude);
+    int length = (isNegative ? 1 : 0) + Math.max(digitCount, padWidth - check) + check;
+    int separators = ! withSeparators ? 0
+                     : (null != template) ? template.separators(length) : (length - 1) / segmentLength;
+    int end = off + separators + length - check;  // the characters go before end until they are spread
+    int sum;
+
+    if (null != pairs) {
+      sum = writePairs(id, digitCount, dst, end, pairs, base, chunkDigits, chunkPower, checked, unsigned);
+    } else if (shift != 0) {
+      sum = writeShifted(magnitude, digitCount, dst, end, tables, base, shift, checked);
+    } else {
+      sum = writeChunks(id, digitCount, dst, end, tables, base, chunkDigits, chunkPower, checked, unsigned);
+    }
+    writeRest(dst, off + separators, end - digitCount, end, isNegative, checked, tables.encodeTable, base, sum);
+
+    if (0 == separators) {
+      return length;
+    }
+    return (null != template) ? template.spread(dst, off, length) : spread(dst, off, length, segmentLength, separator);
+  }
+
+  // Pads dst[first, digits) with the 0 representation, after the sign if there is one, and puts
+  // the check character for sum at end. Zero adds nothing to the Luhn sum.
+  private static void writeRest (byte [] dst, int first, int digits, int end, boolean isNegative, boolean checked,
+                                 byte [] characters, int base, int sum) {
+    if (isNegative) {
+      dst[first++] = NEGATIVE_SIGN;
+    }
+    for (int pos = first; pos < digits; pos++) {
+      dst[pos] = characters[0];
+    }
+    if (checked) {
+      dst[end] = characters[(base - sum % base) % base];
+    }
+  }
+
+  /**
+   * Writes the digitCount digits of id, right-most first, ending just before dst[end], and
+   * returns their Luhn sum if checked, with factor 2 on the right-most digit.
+   *
+   * The first chunk of a signed id is taken from id itself, negative or not, which keeps
+   * Long.MIN_VALUE from overflowing. If unsigned, it is split off with an unsigned division,
+   * which leaves a magnitude that fits in 63 bits for the rest. Either way, there is one 64-bit
+   * division for every chunkDigits digits, and 32-bit arithmetic within a chunk.
+   */
+  private static int writeChunks (long id, int digitCount, byte [] dst, int end, AlphabetTables tables,
+                                  int base, int chunkDigits, int chunkPower, boolean checked, boolean unsigned) {
+    byte [] characters = tables.encodeTable;
+    int [] luhn = tables.luhnDoubled;
+    int inChunk = chunkDigits;  // digits left in the current chunk
+    int chunk;
+    long magnitude;
+    int sum = 0;
+
+    if (unsigned) {
+      chunk = (int) Long.remainderUnsigned(id, chunkPower);
+      magnitude = Long.divideUnsigned(id, chunkPower);
+    } else {
+      chunk = (int) Math.abs(id % chunkPower);  // id % chunkPower carries the sign of id
+      magnitude = Math.abs(id / chunkPower);
+    }
+
+    for (int i = 0; i < digitCount; i++) {
+      if (inChunk == 0) {
+        chunk = (int) (magnitude % chunkPower);
+        magnitude /= chunkPower;
+        inChunk = chunkDigits;
+      }
+      int digit = chunk % base;
+      chunk /= base;
+      inChunk--;
+
+      if (checked) {
+        sum += ((i & 1) == 0) ? luhn[digit] : digit;
+      }
+      dst[end - 1 - i] = characters[digit];
+    }
+    return sum;
+  }
+
+  /**
+   * writeChunks for a power of two base: a mask and a shift per digit.
+   */
+  private static int writeShifted (long magnitude, int digitCount, byte [] dst, int end, AlphabetTables tables,
+                                   int base, int shift, boolean checked) {
+    byte [] characters = tables.encodeTable;
+    int [] luhn = tables.luhnDoubled;
+    int sum = 0;
+
+    for (int i = 0; i < digitCount; i++) {
+      int digit = (int) magnitude & (base - 1);
+
+      magnitude >>>= shift;
+      if (checked) {
+        sum += ((i & 1) == 0) ? luhn[digit] : digit;
+      }
+      dst[end - 1 - i] = characters[digit];
+    }
+    return sum;
+  }
+
+  /**
+   * writeChunks, two digits at a time: each division by numberBase^2 yields a pair of digits,
+   * whose characters and Luhn sum come from tables. The chunks hold a whole number of pairs,
+   * so a pair always starts at an even position from the right and its Luhn sum, with factor
+   * 2 on the right-hand digit, is known in advance. If the number of digits is odd, the last
+   * pair is a single digit with a zero to its left, and only its right-hand character is used.
+   */
+  private static int writePairs (long id, int digitCount, byte [] dst, int end, AlphabetTables.TwoDigitTables pairs,
+                                 int base, int chunkDigits, int chunkPower, boolean checked, boolean unsigned) {
+    byte [] characters = pairs.characters;
+    int pairBase = base * base;
+    int inChunk = chunkDigits;
+    int chunk;
+    long magnitude;
+    int sum = 0;
+
+    if (unsigned) {
+      chunk = (int) Long.remainderUnsigned(id, chunkPower);
+      magnitude = Long.divideUnsigned(id, chunkPower);
+    } else {
+      chunk = (int) Math.abs(id % chunkPower);
+      magnitude = Math.abs(id / chunkPower);
+    }
+
+    for (int i = 0; i < digitCount; i += 2) {
+      if (inChunk == 0) {
+        chunk = (int) (magnitude % chunkPower);
+        magnitude /= chunkPower;
+        inChunk = chunkDigits;
+      }
+      int pair = chunk % pairBase;
+      chunk /= pairBase;
+      inChunk -= 2;
+
+      if (checked) {
+        sum += pairs.luhn[pair];
+      }
+      dst[end - 1 - i] = characters[2 * pair + 1];
+      if (i + 1 < digitCount) {
+        dst[end - 2 - i] = characters[2 * pair];
+      }
+    }
+    return sum;
+  }
+
+  /**
+   * Lays out the length characters at dst[off + separators, off + length + separators) with a
+   * separator after every segmentLength of them, in place, and returns the new length. Only
+   * the full segments move, left, so going left to right none is overwritten before it has
+   * moved, and the last segment is already where it belongs.
+   */
+  static int spread (byte [] dst, int off, int length, int segmentLength, byte separator) {
+    int separators = (length - 1) / segmentLength;
+    int from = off + separators;
+
+    for (int to = off; to < from; from += segmentLength, to += segmentLength + 1) {
+      System.arraycopy(dst, from, dst, to, segmentLength);
+      dst[to + segmentLength] = separator;
+    }
+    return length + separators;
+  }
+
+  /**
+   * Returns the number of digits needed to encode magnitude, which is treated as an unsigned
+   * 64-bit value. See EncodedId.digitCount.
+   */
+  static int digitCount (AlphabetTables tables, long magnitude) {
+    int count = tables.digitsByBitLength[Long.SIZE - Long.numberOfLeadingZeros(magnitude)];
+    long [] powers = tables.powers;
+
+    if (count < powers.length && Long.compareUnsigned(magnitude, powers[count]) >= 0) {
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Decodes src[start, end) into out[index] and returns DECODED, or returns why it couldn't,
+   * one character at a time.
+   *
+   * Separators are skipped as they are read and the first other character may be the negative
+   * sign, unless unsigned. If strict, a separator is accepted only where encoding puts one:
+   * after every segmentLength characters, counting the sign and check character, and never at
+   * the end. With a template, separators must be exactly where it puts them. Characters decode
+   * to IGNORABLE only in a tolerant decode table, and are skipped unless separators have fixed
+   * places.
+   *
+   * If checked then the right-most character is the check character: each digit is held back
+   * until the next one arrives, since the number of digits isn't known until the end. The Luhn
+   * sum is kept two ways (as if the last character were the right-most, and as if it were next
+   * to it), and with the check character it comes to a multiple of the base.
+   *
+   * Digits are accumulated in an int, chunkDigits at a time, and only each full chunk is folded
+   * into the long. Each fold checks that the magnitude still fits. If unsigned, a result of
+   * OVERFLOW is left for the caller to look into.
+   */
+  static int decode (CharSequence src, int start, int end, long [] out, int index,
+                     int [] decode, int [] luhn, AlphabetTables.Limits limits, int base, int chunkDigits,
+                     boolean checked, boolean skipSeparators, boolean strict, char separator, int segmentLength,
+                     boolean unsigned, FormatTemplate template) {
+    boolean fixed = strict || null != template;  // separators have fixed places
+    int chunk = 0;              // digits not yet folded into id
+    int chunkLength = 0;
+    boolean isNegative = false; // assume positive id
+    int count = 0;              // characters decoded so far, including a check character
+    int pending = 0;            // the last character decoded, if it might be the check character
+    int sum = 0;                // Luhn sum with factor 2 on the last character
+    int otherSum = 0;           // Luhn sum with factor 1 on the last character
+    long id = 0;
+
+    for (int i = start; i < end; i++) {
+      char c = src.charAt(i);
+
+      if (fixed) {
+        int placed = placeSeparator(template, separator, segmentLength, c, i, start, end);
+
+        if (0 != placed) {
+          if (placed < 0) {
+            return MISPLACED_SEPARATOR;
+          }
+          continue;
+        }
+      } else if (skipSeparators && c == separator) {
+        continue;
+      }
+
+      int nextVal = valueOf(decode, c);
+
+      if (nextVal < 0) {
+        if (isSign(c, count, isNegative, unsigned)) {
+          isNegative = true;
+        } else if (EncodedId.IGNORABLE != nextVal || fixed) {
+          return INVALID_CHARACTER;
+        }
+        continue;
+      }
+      count++;
+      if (checked) {
+        int t = sum;
+        sum = otherSum + luhn[nextVal];
+        otherSum = t + nextVal;
+
+        int held = pending;
+        pending = nextVal;
+        if (count == 1) {
+          continue;
+        }
+        nextVal = held;
+      }
+
+      chunk = chunk * base + nextVal;
+      if (++chunkLength == chunkDigits) {
+        id = limits.fold(id, chunkDigits, chunk);
+        chunk = 0;
+        chunkLength = 0;
+      }
+    }
+
+    if (strict && end == start) {
+      return MISPLACED_SEPARATOR;
+    }
+    return finish(limits, id, chunkLength, chunk, checked ? count - 1 : count, isNegative,
+                  checked && otherSum % base != 0, unsigned, out, index);
+  }
+
+  // For the character c at i in src[start, end): 1 if it is a separator where the layout puts one,
+  // 0 if it is a character where one goes, and -1 if not. The layout is template's if there is one,
+  // and a separator after every segmentLength characters but never at either end if not.
+  private static int placeSeparator (FormatTemplate template, char separator, int segmentLength,
+                                     char c, int i, int start, int end) {
+    int p = i - start;      // characters and separators to the left...
+    int d = end - 1 - i;    // ...and to the right
+    char expected;
+    boolean isSeparator;
+
+    if (null != template) {
+      expected = template.separatorAt(d);
+      isSeparator = template.isSeparator(c);
+    } else {
+      expected = ((p + 1) % (segmentLength + 1) == 0) ? separator : 0;
+      isSeparator = c == separator;
+    }
+    if (0 == expected && ! isSeparator) {
+      return 0;
+    }
+    return (c != expected || 0 == p || 0 == d) ? -1 : 1;
+  }
+
+  /**
+   * decode, two characters at a time where it can: whenever the next two characters are both
+   * digits, one lookup in a table indexed by the pair of characters gives the value of both,
+   * and the two Luhn sums each take one table addend. Anything else (a separator, the sign,
+   * an invalid character, a single digit) takes the one-character steps of decode. There is no
+   * template and no tolerant decode table here.
+   *
+   * Rather than hold each digit back in case it is the check character, the check character
+   * is found first: it is the last character that isn't a separator.
+   */
+  static int decodePairs (CharSequence src, int start, int end, long [] out, int index,
+                          AlphabetTables tables, AlphabetTables.TwoDigitTables pairs, AlphabetTables.Limits limits,
+                          int base, int chunkDigits, boolean checked, boolean skipSeparators, boolean strict,
+                          char separator, int segmentLength, boolean unsigned) {
+    int [] decode = tables.decodeTable;
+    int [] pairValues = pairs.values;
+    int width = pairs.width;
+    int untilSeparator = segmentLength;
+    int chunk = 0;
+    int chunkLength = 0;
+    boolean isNegative = false;
+    int count = 0;              // digits decoded so far, not counting a check character
+    int checkAt = end;          // where the check character is, if checked
+    int checkValue = EncodedId.NOT_IN_ALPHABET;
+    int sum = 0;
+    int otherSum = 0;
+    long id = 0;
+
+    if (checked) {
+      checkAt = end - 1;
+      while (skipSeparators && checkAt >= start && src.charAt(checkAt) == separator) {
+        checkAt--;
+      }
+    }
+
+    for (int i = start; i < end; i++) {
+      char c = src.charAt(i);
+
+      if (skipSeparators && c == separator) {
+        if (strict && untilSeparator != 0) {
+          return MISPLACED_SEPARATOR;
+        }
+        untilSeparator = segmentLength;
+        continue;
+      }
+      if (strict && untilSeparator-- == 0) {
+        return MISPLACED_SEPARATOR;
+      }
+      if (c == NEGATIVE_SIGN && count == 0 && ! isNegative && ! unsigned) {
+        isNegative = true;
+        continue;
+      }
+
+      if (i == checkAt) {
+        checkValue = valueOf(decode, c);
+        if (EncodedId.NOT_IN_ALPHABET == checkValue) {
+          return INVALID_CHARACTER;
+        }
+        continue;
+      }
+
+      // Two digits, if the next character is a digit too and no separator is due before it.
+
+      int pair = EncodedId.NOT_IN_ALPHABET;
+
+      if (i + 1 < checkAt && (! strict || untilSeparator > 0)) {
+        char d = src.charAt(i + 1);
+
+        pair = (c < width && d < width) ? pairValues[c * width + d] : EncodedId.NOT_IN_ALPHABET;
+      }
+      if (EncodedId.NOT_IN_ALPHABET != pair) {
+        if (chunkLength > chunkDigits - 2) {
+          id = limits.fold(id, chunkLength, chunk);
+          chunk = 0;
+          chunkLength = 0;
+        }
+        chunk = chunk * pairs.pairBase + pair;
+        chunkLength += 2;
+        sum += pairs.luhn[pair];
+        otherSum += pairs.otherLuhn[pair];
+        count += 2;
+        if (strict) {
+          untilSeparator--;
+        }
+        i++;
+      } else {
+        int value = valueOf(decode, c);
+
+        if (EncodedId.NOT_IN_ALPHABET == value) {
+          return INVALID_CHARACTER;
+        }
+        chunk = chunk * base + value;
+        chunkLength++;
+        int t = sum;
+        sum = otherSum + tables.luhnDoubled[value];
+        otherSum = t + value;
+        count++;
+      }
+      if (chunkLength == chunkDigits) {
+        id = limits.fold(id, chunkDigits, chunk);
+        chunk = 0;
+        chunkLength = 0;
+      }
+    }
+
+    if (strict && untilSeparator == segmentLength) {
+      return MISPLACED_SEPARATOR;
+    }
+    return finish(limits, id, chunkLength, chunk, (checked && EncodedId.NOT_IN_ALPHABET == checkValue) ? 0 : count,
+                  isNegative, checked && checkValue != (base - sum % base) % base, unsigned, out, index);
+  }
+
+  /**
+   * Indicates if c, which isn't in the alphabet, is the negative sign where one may be: before
+   * any digit, once, and only if signed.
+   */
+  static boolean isSign (char c, int count, boolean isNegative, boolean unsigned) {
+    return c == NEGATIVE_SIGN && count == 0 && ! isNegative && ! unsigned;
+  }
+
+  /**
+   * The value of c in decode: a digit value, NOT_IN_ALPHABET or, in a tolerant table, IGNORABLE.
+   */
+  static int valueOf (int [] decode, char c) {
+    return c < decode.length ? decode[c] : EncodedId.NOT_IN_ALPHABET;
+  }
+
+  // The end of every decode: folds in the last chunk, then checks there were digits, the check
+  // character and the range of a signed id.
+  private static int finish (AlphabetTables.Limits limits, long id, int chunkLength, int chunk, int digits,
+                             boolean isNegative, boolean badCheck, boolean unsigned, long [] out, int index) {
+    if (digits <= 0) {
+      return NO_DIGITS; // Nothing but a sign, separators or check character.
+    }
+    id = limits.fold(id, chunkLength, chunk);
+    if (badCheck) {
+      return INVALID_CHECK_CHARACTER;
+    }
+    if (! unsigned && (id == OVERFLOW || (id == Long.MIN_VALUE && ! isNegative))) {
+      return OUT_OF_RANGE;  // only a negative id has magnitude 2^63
+    }
+    out[index] = isNegative ? -id : id;
+    return DECODED;
+  }
+}
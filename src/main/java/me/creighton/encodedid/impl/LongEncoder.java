@@ -4,17 +4,85 @@ import me.creighton.encodedid.EncodedIdException;
 import me.creighton.encodedid.IEncodedId;
 import me.creighton.encodedid.ILongEncoder;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+
 import static me.creighton.encodedid.EncodedIdException.*;
 import static me.creighton.encodedid.Utilities.getRandomLong;
 import static me.creighton.encodedid.EncodingConstants.*;
+import static me.creighton.encodedid.impl.AlphabetTables.OVERFLOW;
 
 public class LongEncoder extends EncodedId implements ILongEncoder {
 
+  private static final int SHORT_LENGTH = 2 * Long.BYTES;  // the most characters decodeShort takes
+  private static final int DECLINED = -1;                   // decodeShort left the input to decode
+
+  private SpecializedLongEncoder specialized = null;  // generated for this configuration; see LongSpecializer
+  private volatile RangeTable rangeTable = null;  // built on first use, dropped by update; see rangeTable
 
   public LongEncoder(IEncodedId.Builder builder) {
     super(builder);
   }
 
+  LongEncoder (IEncodedId.Builder builder, AlphabetTables shared) {
+    super(builder, shared);
+  }
+
+  // Getters and setters
+
+  @Override
+  public boolean twoDigitTables () {
+    return settings().twoDigitTables;
+  }
+
+  @Override
+  public void twoDigitTables (boolean twoDigitTables) {
+    update(b -> b.twoDigitTables(twoDigitTables));
+  }
+
+  @Override
+  public boolean unsigned () {
+    return settings().unsigned;
+  }
+
+  @Override
+  public void unsigned (boolean unsigned) {
+    update(b -> b.unsigned(unsigned));
+  }
+
+  @Override
+  public int rangeTableLimit () {
+    return settings().rangeTableLimit;
+  }
+
+  @Override
+  public void rangeTableLimit (int rangeTableLimit) {
+    checkRangeTableLimit(rangeTableLimit);
+    update(b -> b.rangeTableLimit(rangeTableLimit));
+  }
+
+  @Override
+  public long rangeTableBytes () {
+    RangeTable table = this.rangeTable;
+
+    return (null == table) ? 0 : table.bytes();
+  }
+
+  /**
+   * EncodedId.update, and drops the range table, which holds encodings for the old settings.
+   * Every setter goes through here, so encode never has to check that the table is current.
+   */
+  @Override
+  protected void update (Consumer<EncodedId.Builder> change) {
+    super.update(change);
+    this.rangeTable = null;
+  }
+
 
   // Public Work Methods
 
@@ -30,109 +98,452 @@ public class LongEncoder extends EncodedId implements ILongEncoder {
   @Override
   public String encodeId (long id) throws EncodedIdException {
 
-    String s = encodeIdWithoutSeparator(id);
-
-    return addSeparators(s);
+    return encode(id, useSeparator());
   }
 
   @Override
   public String encodeIdWithoutSeparator (long id) throws EncodedIdException {
 
-    StringBuilder eId = new StringBuilder();
-    int nextVal = 0;
-    int countPads = 0;
-    boolean isNegative = (id < 0);
+    return encode(id, false);
+  }
+
+  /**
+   * The longest encoding this encoder can produce: sign, every digit a long can need (or the
+   * pad width), check character and separators.
+   */
+  protected int maxEncodedLength (boolean withSeparators) {
+    int check = checkedEncoder() ? 1 : 0;
+    int length = 1 + Math.max(maxDigits(), padWidth() - check) + check;
 
-    if (isNegative) {
-      id *= -1; // encode the positive & track the sign; ie. signed magnitude
+    return withSeparators ? separatedLength(length) : length;
+  }
+
+  @Override
+  public int maxEncodedLength () {
+    return maxEncodedLength(useSeparator());
+  }
+
+  /**
+   * The longest input decode reads; see EncodedId.maxDecodeLength.
+   */
+  protected int maxDecodeLength () {
+    return maxDecodeLength(unsigned() ? maxDigits() : tables().maxLongDigits);
+  }
+
+  /**
+   * The length of the encoding of id.
+   */
+  protected int encodedLength (long id, boolean withSeparators) {
+    boolean isNegative = ! unsigned() && id < 0;
+
+    return encodedLength(digitCount(isNegative ? -id : id), isNegative, withSeparators);
+  }
+
+  @Override
+  public int encodeTo (long id, byte [] dst, int off) throws EncodedIdException {
+    boolean withSeparators = useSeparator();
+
+    Objects.checkFromIndexSize(off, encodedLength(id, withSeparators), dst.length);
+    return encodeInto(id, withSeparators, dst, off);
+  }
+
+  @Override
+  public int encodeTo (long id, ByteBuffer dst) throws EncodedIdException {
+    boolean withSeparators = useSeparator();
+    int length = encodedLength(id, withSeparators);
+
+    if (dst.remaining() < length) {
+      throw new BufferOverflowException();
     }
+    if (dst.hasArray()) {
+      encodeInto(id, withSeparators, dst.array(), dst.arrayOffset() + dst.position());
+    } else {
+      byte [] buffer = new byte[length];
+      encodeInto(id, withSeparators, buffer, 0);
+      dst.put(dst.position(), buffer);
+    }
+    dst.position(dst.position() + length);
+    return length;
+  }
 
-    if (0 == id) {
-      eId.append(encodeValue(0));       // encode that value
+  protected String encode (long id, boolean withSeparators) {
+    RangeTable table = rangeTable(id, withSeparators);
+
+    if (null != table) {
+      return table.encode(id);
     }
-    while (id > 0) {
-      nextVal = (int) (id % numberBase()); // grab next value to encode
-      id /= numberBase();                  // reduce the source by one value size
-      eId.append(encodeValue(nextVal));       // encode that value
+    if (null != this.specialized) {
+      return this.specialized.encode(id, withSeparators);
     }
 
-    // Next we need to pad to the min size. Remember that we are building this in reverse.
+    byte [] buffer = new byte[maxEncodedLength(withSeparators)];
+    int length = encodeInto(id, withSeparators, buffer, 0);
+
+    return new String(buffer, 0, length, StandardCharsets.ISO_8859_1);
+  }
+
+  /**
+   * Writes the encoding of id into dst starting at off and returns the number of bytes written:
+   * a copy from the range table if there is one for id, and encodeDigitsInto otherwise.
+   */
+  protected int encodeInto (long id, boolean withSeparators, byte [] dst, int off) {
+    RangeTable table = rangeTable(id, withSeparators);
 
-    countPads = padWidth() - eId.length() - (checkedEncoder() ? 1 : 0);
-    while (countPads-- > 0) {
-      eId.append(encodeValue(0));         // Pad with 0 representation.
+    if (null != table) {
+      return table.copyInto(id, dst, off);
     }
+    return encodeDigitsInto(id, withSeparators, dst, off);
+  }
 
-    // Finally, we add the sign if the original string was negative.
+  /**
+   * The range table to encode id from, building it if need be, or null if there is none.
+   *
+   * There is one only if rangeTableLimit is set, minId to maxId holds fewer ids than that and
+   * id is among them. It is built for the separator setting, so encodeIdWithoutSeparator on an
+   * encoder with separators computes as before rather than swapping tables back and forth.
+   * Once there is a table, it is current, since update drops it, and only its own range and
+   * separator setting are checked. Two threads may both build it the first time; either table
+   * will do.
+   */
+  private RangeTable rangeTable (long id, boolean withSeparators) {
+    RangeTable table = this.rangeTable;
+
+    if (null != table) {
+      return table.covers(id, withSeparators) ? table : null;
+    }
+    if (0 == rangeTableLimit() || id < getMinId() || id > getMaxId() || withSeparators != useSeparator()) {
+      return null;
+    }
+    table = RangeTable.build(this, withSeparators, rangeTableLimit());  // null if the range is too big
+    this.rangeTable = table;
+    return table;
+  }
 
-    if (isNegative) {
-      eId.append(NEGATIVE_SIGN);
+  /**
+   * Writes the encoding of id into dst starting at off and returns the number of bytes written:
+   * with the class generated for this configuration if there is one, and with LongConversion.encode
+   * and the settings if not, which is the same code. See LongConversion for how.
+   */
+  protected int encodeDigitsInto (long id, boolean withSeparators, byte [] dst, int off) {
+    if (null != this.specialized) {
+      return this.specialized.encodeInto(id, withSeparators, dst, off);
     }
 
-    // After optional padding, reverse the string to make it the right way.
-    eId.reverse();
+    Settings s = settings();
+    AlphabetTables tables = s.tables;
+    AlphabetTables.TwoDigitTables pairs = encodePairs();
 
-    // Now append check character if enabled
+    return LongConversion.encode(id, withSeparators, dst, off, tables, pairs,
+        tables.numberBase, tables.digitShift, (null == pairs) ? tables.chunkDigits : pairs.chunkDigits,
+        (null == pairs) ? tables.chunkPower : pairs.chunkPower, s.checkedEncoder,
+        s.padWidth, s.segmentLength, (byte) s.separator, s.unsigned, s.template);
+  }
 
-    if (checkedEncoder()) {
-      String s = eId.toString();
-      if (isNegative) {
-        s = s.substring(1); // skip the negative sign
-      }
-      char checkCharacter = generateCheckCharacter(s);
+  /**
+   * encodePairs, to decode two digits at a time from, or null if decodeDigits has to do the
+   * decoding: with tolerantDecoding or a format template.
+   */
+  AlphabetTables.TwoDigitTables decodePairs () {
+    return (tolerantDecoding() || (useSeparator() && null != template())) ? null : encodePairs();
+  }
+
+  /**
+   * Switches encode, encodeDigitsInto and decode to a class generated for the current
+   * configuration, if the runtime allows it, and returns whether it did. Only for an encoder that
+   * will never be changed again, like the one a compiled codec owns.
+   */
+  boolean specialize () {
+    this.specialized = LongSpecializer.specialize(this);
+    return null != this.specialized;
+  }
+
+  boolean isSpecialized () {
+    return null != this.specialized;
+  }
 
-      eId.append(checkCharacter);
+  @Override
+  public long decodeId (String encodedId) throws EncodedIdException {
+    if (null == encodedId) {
+      // Invalid encodedId
+      throwDecodeFailure(NO_DIGITS, "", 0, 0); // null has no digits
+      // Never returns to here
     }
+    return decodeId(encodedId, 0, encodedId.length());
+  }
 
-    return eId.toString();
+  @Override
+  public long decodeId (ByteBuffer src) throws EncodedIdException {
+    long id = decodeId(latin1View(src), 0, src.remaining());
+
+    src.position(src.limit());
+    return id;
   }
 
+  /**
+   * Decodes the characters of src from start (inclusive) to end (exclusive) where they are,
+   * so an ID can be read out of a path, header or log line without a substring.
+   */
   @Override
-  public long decodeId(String encodedId) throws EncodedIdException {
-    long id = (null == encodedId || encodedId.length() == 0) ? -1 : 0;
-    int nextVal;
-    boolean isNegative = false; // assume positive id
+  public long decodeId (CharSequence src, int start, int end) throws EncodedIdException {
+    Objects.checkFromToIndex(start, end, src.length());
 
-    String s = encodedId;
+    long [] out = decodedValue();
+    int status = decode(src, start, end, out, 0);
 
-    if (-1 == id) {
-      // Invalid encodedId
-      throwInvalidCharacter(' '); // Not really a space - null length or null
+    if (status != DECODED) {
+      throwDecodeFailure(status, src, start, end);
       // Never returns to here
     }
-    if (useSeparator()) {
-      // If this is true - scan for and eliminate all separator characters.
-      s = "" + this.separator();
-      s = encodedId.replaceAll(s, "");
+    return out[0];
+  }
+
+  /**
+   * decodeId without the exception: returns DECODED and sets out[index], or returns why src[start, end)
+   * isn't a valid encoding and leaves out alone. Nothing is allocated either way, so a flood of bad
+   * input costs no more than good input. Bad indexes still throw, since they are the caller's mistake.
+   */
+  @Override
+  public int tryDecodeId (CharSequence src, int start, int end, long [] out, int index) {
+    Objects.checkFromToIndex(start, end, src.length());
+    Objects.checkIndex(index, out.length);
+
+    return decode(src, start, end, out, index);
+  }
+
+  /**
+   * tryDecodeId for a whole CharSequence. It decodes into this thread's decodedValue and failures
+   * return the shared empty OptionalLong, so only a valid encoding allocates anything.
+   */
+  @Override
+  public OptionalLong tryDecodeId (CharSequence src) {
+    if (null == src) {
+      return OptionalLong.empty();
     }
-    // At this point we have an encoded string with no separators
-    // Note that 0 == id at this point
 
-    // Now check for the negative sign.
-    if(s.charAt(0) == NEGATIVE_SIGN) {
-      isNegative = true;
-      s = s.substring(1); // trim the negative sign
+    long [] out = decodedValue();
+
+    return (decode(src, 0, src.length(), out, 0) == DECODED) ? OptionalLong.of(out[0]) : OptionalLong.empty();
+  }
+
+  @Override
+  public void encodeAll (long [] ids, String [] out) throws EncodedIdException {
+    if (out.length < ids.length) {
+      throw new IndexOutOfBoundsException("out has room for " + out.length + " of " + ids.length + " ids");
+    }
+
+    boolean withSeparators = useSeparator();
+    byte [] buffer = new byte[maxEncodedLength(withSeparators)];  // reused for every id
+
+    for (int i = 0; i < ids.length; i++) {
+      int length = encodeInto(ids[i], withSeparators, buffer, 0);
+      out[i] = new String(buffer, 0, length, StandardCharsets.ISO_8859_1);
+    }
+  }
+
+  @Override
+  public BitSet decodeAll (String [] in, long [] out) {
+    if (out.length < in.length) {
+      throw new IndexOutOfBoundsException("out has room for " + out.length + " of " + in.length + " ids");
     }
 
+    BitSet invalid = new BitSet();
 
-    // If isCheckedEncoder then the right-most character is the check character.
-    // First validate that check character is correct, then decode a shorter length.
+    for (int i = 0; i < in.length; i++) {
+      String s = in[i];
 
-    if (checkedEncoder()) {
-      if (! validateCheckCharacter(s)) {
-        throwInvalidCheckCharacter(s);
-        // !!! Never returns here !!!
+      if (null == s || decode(s, 0, s.length(), out, i) != DECODED) {
+        out[i] = 0;
+        invalid.set(i);
       }
-      s = s.substring(0, s.length() - 1);
+    }
+    return invalid;
+  }
+
+  /**
+   * Decodes src[start, end) into out[index] and returns DECODED, or returns why it couldn't
+   * without throwing, so one bad entry of a batch costs no more than a good one. Input longer
+   * than maxDecodeLength is OUT_OF_RANGE before any of it is read. The work is done by the
+   * specialized class if there is one, and by decodeShort, decodeTwoDigits or decodeDigits,
+   * whichever applies first, if not.
+   */
+  protected int decode (CharSequence src, int start, int end, long [] out, int index) {
+    if (end - start > maxDecodeLength()) {
+      return OUT_OF_RANGE;
     }
 
-    for (int i = 0; i < s.length(); i++) {
-      id *= numberBase();  // Shift current value in the accumulator
-      nextVal = decodeChar(s.charAt(i));
-      id += nextVal;          // Add in the value of the current character.
+    long previous = out[index];
+    int status;
+
+    if (null != this.specialized) {
+      status = this.specialized.decode(src, start, end, out, index);
+    } else if (tolerantDecoding() || (useSeparator() && null != template())) {
+      status = decodeDigits(src, start, end, out, index);
+    } else {
+      status = decodeShort(src, start, end, out, index);
+      if (DECLINED == status) {
+        status = (null != decodePairs())
+                   ? decodeTwoDigits(src, start, end, out, index)
+                   : decodeDigits(src, start, end, out, index);
+      }
     }
-    return id * (isNegative ? -1 : 1);
+    if (unsigned() && DECODED == status && OVERFLOW == out[index] && ! isUnsignedMax(src, start, end)) {
+      out[index] = previous;
+      return OUT_OF_RANGE;
+    }
+    return status;
   }
 
+  /**
+   * In unsigned mode, the decoders return OVERFLOW, 2^64 - 1, for values too big as well. Tells
+   * them apart, the slow way since it is so rare: src[start, end), which is known to be valid,
+   * is 2^64 - 1 if its digit values, after leading zeros, are those of the encoding of 2^64 - 1.
+   * Values rather than characters, so that tolerantDecoding's other spellings count too.
+   */
+  private boolean isUnsignedMax (CharSequence src, int start, int end) {
+    String max = encodeIdWithoutSeparator(OVERFLOW);
+    boolean leading = true;
+    int m = 0;
+
+    while (valueOf(max.charAt(m)) == 0) {
+      m++;  // padding: 2^64 - 1 itself starts with a non-zero digit
+    }
+    for (int i = start; i < end; i++) {
+      char c = src.charAt(i);
+      int value = valueOf(c);
 
+      if (isSeparator(c) || IGNORABLE == value || (leading && value == 0)) {
+        continue;
+      }
+      leading = false;
+      if (m == max.length() || value != valueOf(max.charAt(m++))) {
+        return false;
+      }
+    }
+    return m == max.length();
+  }
+
+  /**
+   * decode, one character at a time, with LongConversion.decode and the settings. It knows
+   * tolerantDecoding and format templates.
+   */
+  protected int decodeDigits (CharSequence src, int start, int end, long [] out, int index) {
+    Settings s = settings();
+    AlphabetTables tables = s.tables;
+    FormatTemplate template = s.useSeparator ? s.template : null;
+
+    return LongConversion.decode(src, start, end, out, index, s.decodeTable, tables.luhnDoubled,
+        s.unsigned ? tables.unsignedLimits : tables.signedLimits, tables.numberBase,
+        tables.chunkDigits, s.checkedEncoder, s.useSeparator, s.useSeparator && s.strictSeparators && null == template,
+        s.separator, s.segmentLength, s.unsigned, template);
+  }
+
+  /**
+   * decode for the common case: no more than SHORT_LENGTH characters after an optional sign,
+   * and no separators. The characters are packed into two longs, a byte each (see AsciiWords),
+   * and both words are checked for separators and for characters outside the range of the
+   * alphabet with a few instructions each. Junk is rejected before a single table lookup, and
+   * what is left is all digits, so the conversion loop has no separator or sign tests and knows
+   * from the start which character is the check character.
+   *
+   * Returns DECLINED, and leaves the input to decode, if it has separators, is longer, is empty,
+   * or the alphabet or separator isn't ASCII. Every other result is the one decode would return.
+   */
+  protected int decodeShort (CharSequence src, int start, int end, long [] out, int index) {
+    AlphabetTables tables = tables();
+    boolean unsigned = unsigned();
+    AlphabetTables.Limits limits = unsigned ? tables.unsignedLimits : tables.signedLimits;
+    boolean skipSeparators = useSeparator();
+    boolean strict = skipSeparators && strictSeparators();
+    int from = start;
+    boolean isNegative = false;
+
+    if (! tables.ascii || (skipSeparators && separator() >= 0x80) || (strict && end - start > segmentLength())) {
+      return DECLINED;  // strict inputs longer than a segment need separators, and decode reports them
+    }
+    if (from < end && src.charAt(from) == NEGATIVE_SIGN && ! unsigned
+        && ! (skipSeparators && separator() == NEGATIVE_SIGN)) {
+      isNegative = true;
+      from++;
+    }
+
+    int n = end - from;
+
+    if (n == 0 || n > SHORT_LENGTH) {
+      return DECLINED;
+    }
+
+    int pad = tables.lowest;
+    long first = AsciiWords.load(src, from, Math.min(end, from + Long.BYTES), pad);
+    long second = (n > Long.BYTES) ? AsciiWords.load(src, from + Long.BYTES, end, pad) : AsciiWords.broadcast(pad);
+
+    if (skipSeparators) {
+      long separators = AsciiWords.broadcast(separator());
+
+      if (AsciiWords.anyEqual(first, separators) || AsciiWords.anyEqual(second, separators)) {
+        return DECLINED;
+      }
+    }
+    if (AsciiWords.anyOutside(first, tables.atLeastLowest, tables.aboveHighest)
+        || AsciiWords.anyOutside(second, tables.atLeastLowest, tables.aboveHighest)) {
+      return INVALID_CHARACTER;
+    }
+
+    int [] decode = tables.decodeTable;
+    int [] luhn = tables.luhnDoubled;
+    int base = tables.numberBase;
+    int chunkDigits = tables.chunkDigits;
+    int digits = checkedEncoder() ? n - 1 : n;
+    int chunk = 0;
+    int chunkLength = 0;
+    int sum = 0;
+    int checkValue = 0;
+    long id = 0;
+
+    for (int k = 0; k < n; k++) {
+      int value = decode[AsciiWords.byteAt((k < Long.BYTES) ? first : second, k & (Long.BYTES - 1))];
+
+      if (NOT_IN_ALPHABET == value) {
+        return INVALID_CHARACTER;
+      }
+      if (k == digits) {
+        checkValue = value;  // only when checked: the last character
+        break;
+      }
+      chunk = chunk * base + value;
+      if (++chunkLength == chunkDigits) {
+        id = limits.fold(id, chunkDigits, chunk);
+        chunk = 0;
+        chunkLength = 0;
+      }
+      sum += (((digits - 1 - k) & 1) == 0) ? luhn[value] : value;  // factor 2 on the last digit
+    }
+
+    if (digits == 0) {
+      return NO_DIGITS;
+    }
+    if (chunkLength > 0) {
+      id = limits.fold(id, chunkLength, chunk);
+    }
+    if (digits < n && checkValue != checkCodePoint(sum)) {
+      return INVALID_CHECK_CHARACTER;
+    }
+    if (! unsigned && (id == OVERFLOW || (id == Long.MIN_VALUE && ! isNegative))) {
+      return OUT_OF_RANGE;  // only a negative id has magnitude 2^63
+    }
+    out[index] = isNegative ? -id : id;
+    return DECODED;
+  }
+
+  /**
+   * decode, two characters at a time where it can, with LongConversion.decodePairs and the
+   * settings. Only when decodePairs isn't null.
+   */
+  protected int decodeTwoDigits (CharSequence src, int start, int end, long [] out, int index) {
+    Settings s = settings();
+    AlphabetTables tables = s.tables;
+
+    return LongConversion.decodePairs(src, start, end, out, index, tables, decodePairs(),
+        s.unsigned ? tables.unsignedLimits : tables.signedLimits, tables.numberBase, tables.chunkDigits,
+        s.checkedEncoder, s.useSeparator, s.useSeparator && s.strictSeparators, s.separator, s.segmentLength, s.unsigned);
+  }
 }
@@ -0,0 +1,77 @@
+package me.creighton.encodedid.impl;
+
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+
+/*
+
+  This class is never used as it is. LongSpecializer reads its class file and defines
+  it again as a hidden class for each configuration, with the encoder as the class data.
+  The static initializer copies the encoder's settings into static finals, which the JIT
+  compiles as constants.
+
+  The methods call LongConversion with those constants, just as LongEncoder calls it with
+  its settings, so there is no second copy of the conversions to keep in step. Once the
+  JIT inlines LongConversion here, the base becomes a constant divisor, the alphabet a
+  constant array, and the pad width, check character and separator layout fold away.
+
+ */
+final class LongEncoderTemplate implements SpecializedLongEncoder {
+
+  private static final LongEncoder ENCODER = classData();
+  private static final EncodedId.Settings SETTINGS = ENCODER.settings();
+  private static final AlphabetTables TABLES = SETTINGS.tables;
+  private static final AlphabetTables.TwoDigitTables ENCODE_PAIRS = ENCODER.encodePairs();
+  private static final AlphabetTables.TwoDigitTables DECODE_PAIRS = ENCODER.decodePairs();
+  private static final AlphabetTables.Limits LIMITS = SETTINGS.unsigned ? TABLES.unsignedLimits : TABLES.signedLimits;
+  private static final int [] DECODE = SETTINGS.decodeTable;
+  private static final int [] LUHN = TABLES.luhnDoubled;
+  private static final int BASE = TABLES.numberBase;
+  private static final int SHIFT = TABLES.digitShift;
+  private static final int CHUNK_DIGITS = TABLES.chunkDigits;
+  private static final int ENCODE_CHUNK_DIGITS = (null == ENCODE_PAIRS) ? CHUNK_DIGITS : ENCODE_PAIRS.chunkDigits;
+  private static final int ENCODE_CHUNK_POWER = (null == ENCODE_PAIRS) ? TABLES.chunkPower : ENCODE_PAIRS.chunkPower;
+  private static final boolean CHECKED = SETTINGS.checkedEncoder;
+  private static final int PAD_WIDTH = SETTINGS.padWidth;
+  private static final int SEGMENT_LENGTH = SETTINGS.segmentLength;
+  private static final char SEPARATOR = SETTINGS.separator;
+  private static final boolean USE_SEPARATOR = SETTINGS.useSeparator;
+  private static final FormatTemplate TEMPLATE = SETTINGS.template;
+  private static final FormatTemplate DECODE_TEMPLATE = USE_SEPARATOR ? TEMPLATE : null;
+  private static final boolean STRICT = USE_SEPARATOR && SETTINGS.strictSeparators && null == DECODE_TEMPLATE;
+  private static final boolean UNSIGNED = SETTINGS.unsigned;
+  private static final int MAX_LENGTH = ENCODER.maxEncodedLength(false);
+  private static final int MAX_SEPARATED_LENGTH = ENCODER.maxEncodedLength(true);
+
+  private static LongEncoder classData () {
+    try {
+      return MethodHandles.classData(MethodHandles.lookup(), "_", LongEncoder.class);  // "_" is the default name
+    } catch (IllegalAccessException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  @Override
+  public String encode (long id, boolean withSeparators) {
+    byte [] buffer = new byte[withSeparators ? MAX_SEPARATED_LENGTH : MAX_LENGTH];
+
+    return new String(buffer, 0, encodeInto(id, withSeparators, buffer, 0), StandardCharsets.ISO_8859_1);
+  }
+
+  @Override
+  public int encodeInto (long id, boolean withSeparators, byte [] dst, int off) {
+    return LongConversion.encode(id, withSeparators, dst, off, TABLES, ENCODE_PAIRS,
+        BASE, SHIFT, ENCODE_CHUNK_DIGITS, ENCODE_CHUNK_POWER, CHECKED,
+        PAD_WIDTH, SEGMENT_LENGTH, (byte) SEPARATOR, UNSIGNED, TEMPLATE);
+  }
+
+  @Override
+  public int decode (CharSequence src, int start, int end, long [] out, int index) {
+    if (null != DECODE_PAIRS) {
+      return LongConversion.decodePairs(src, start, end, out, index, TABLES, DECODE_PAIRS, LIMITS, BASE, CHUNK_DIGITS,
+          CHECKED, USE_SEPARATOR, STRICT, SEPARATOR, SEGMENT_LENGTH, UNSIGNED);
+    }
+    return LongConversion.decode(src, start, end, out, index, DECODE, LUHN, LIMITS, BASE, CHUNK_DIGITS,
+        CHECKED, USE_SEPARATOR, STRICT, SEPARATOR, SEGMENT_LENGTH, UNSIGNED, DECODE_TEMPLATE);
+  }
+}
@@ -0,0 +1,54 @@
+package me.creighton.encodedid.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/*
+
+  Generates a SpecializedLongEncoder for one LongEncoder configuration: the class file
+  of LongEncoderTemplate is defined again as a hidden class, with the encoder as its
+  class data. See LongEncoderTemplate.
+
+  Where that isn't possible (the class file can't be read, or the runtime doesn't support
+  hidden classes or refuses to define this one) specialize returns null and the caller
+  keeps using the encoder. Anything else is a bug, and is thrown.
+
+ */
+final class LongSpecializer {
+
+  private static final byte [] TEMPLATE = readTemplate();
+
+  private LongSpecializer () { }
+
+  /**
+   * A specialized copy of encoder's work methods, or null. The encoder must not change
+   * afterwards, which is why only compiled codecs are specialized.
+   */
+  static SpecializedLongEncoder specialize (LongEncoder encoder) {
+    if (null == TEMPLATE) {
+      return null;
+    }
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClassWithClassData(TEMPLATE, encoder, true);
+
+      return (SpecializedLongEncoder) lookup.findConstructor(lookup.lookupClass(),
+          MethodType.methodType(void.class)).invoke();
+    } catch (UnsupportedOperationException | IllegalAccessException | NoClassDefFoundError | VerifyError e) {
+      return null;  // Not available here: stay generic. A template that fails to initialize is a bug.
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new IllegalStateException("LongEncoderTemplate can't be instantiated", t);
+    }
+  }
+
+  private static byte [] readTemplate () {
+    try (InputStream in = LongEncoderTemplate.class.getResourceAsStream("LongEncoderTemplate.class")) {
+      return (null == in) ? null : in.readAllBytes();
+    } catch (IOException | SecurityException e) {
+      return null;
+    }
+  }
+}
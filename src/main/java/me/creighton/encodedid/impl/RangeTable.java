@@ -0,0 +1,97 @@
+package me.creighton.encodedid.impl;
+
+import java.nio.charset.StandardCharsets;
+
+/*
+
+  Every encoding of a small range of ids, minId to maxId, worked out once and kept in one
+  byte array with a fixed stride: entry i, for id minId + i, is a length byte followed by the
+  encoding. Encoding an id in the range is then a copy out of the array, with no division
+  at all. The table is only good for the settings it was built with, so LongEncoder.update
+  drops it and the next encode builds a new one.
+
+  Decoding has no table. A lookup by encoding, as in a HashMap, has to hash every character,
+  which is about what decoding costs, and then misses the cache: with 10,000 and 100,000
+  ids it measured 48-100 ns against 29-70 ns for LongEncoder.decodeId.
+
+ */
+final class RangeTable {
+
+  private final boolean withSeparators;
+  private final long minId;
+  private final long maxId;
+  private final int stride;
+  private final byte [] entries;
+
+  private RangeTable (LongEncoder encoder, boolean withSeparators, int stride, int count) {
+    this.withSeparators = withSeparators;
+    this.minId = encoder.getMinId();
+    this.maxId = encoder.getMaxId();
+    this.stride = stride;
+    this.entries = new byte[stride * count];
+
+    for (int i = 0; i < count; i++) {
+      int at = i * stride;
+      this.entries[at] = (byte) encoder.encodeDigitsInto(this.minId + i, withSeparators, this.entries, at + 1);
+    }
+  }
+
+  /**
+   * The table for the encoder's range and settings, or null if the range doesn't hold fewer
+   * than limit ids or won't fit in one array.
+   */
+  static RangeTable build (LongEncoder encoder, boolean withSeparators, int limit) {
+    long minId = encoder.getMinId();
+    long maxId = encoder.getMaxId();
+
+    // maxId - minId, as unsigned, is one less than the number of ids, even if it overflows.
+
+    if (limit <= 0 || maxId < minId || Long.compareUnsigned(maxId - minId, limit - 1L) >= 0) {
+      return null;
+    }
+
+    // Lengths grow with the magnitude, so the longest encoding is at one end of the range,
+    // or is that of -1, the largest value there is if unsigned.
+
+    int longest = Math.max(encoder.encodedLength(minId, withSeparators), encoder.encodedLength(maxId, withSeparators));
+    if (minId < 0 && maxId >= 0) {
+      longest = Math.max(longest, encoder.encodedLength(-1L, withSeparators));
+    }
+
+    int count = Math.toIntExact(Math.addExact(Math.subtractExact(maxId, minId), 1L));
+    int stride = 1 + longest;
+
+    if ((long) count * stride > Integer.MAX_VALUE - 8) {
+      return null;
+    }
+    return new RangeTable(encoder, withSeparators, stride, count);
+  }
+
+  /**
+   * Indicates if this table holds the encoding of id, with or without separators.
+   */
+  boolean covers (long id, boolean withSeparators) {
+    return id >= this.minId && id <= this.maxId && this.withSeparators == withSeparators;
+  }
+
+  /**
+   * Copies the encoding of id, which must be in the range, into dst at off and returns its length.
+   */
+  int copyInto (long id, byte [] dst, int off) {
+    int at = (int) (id - this.minId) * this.stride;
+    int length = this.entries[at];
+
+    System.arraycopy(this.entries, at + 1, dst, off, length);
+    return length;
+  }
+
+  String encode (long id) {
+    int at = (int) (id - this.minId) * this.stride;
+
+    return new String(this.entries, at + 1, this.entries[at], StandardCharsets.ISO_8859_1);
+  }
+
+  long bytes () {
+    return this.entries.length;
+  }
+}
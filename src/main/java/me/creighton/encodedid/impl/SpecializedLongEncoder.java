@@ -0,0 +1,11 @@
+package me.creighton.encodedid.impl;
+
+/*
+  The work methods of LongEncoder that LongSpecializer generates a class for, with one
+  configuration built in. See LongEncoder for what each of them does.
+ */
+interface SpecializedLongEncoder {
+  String encode (long id, boolean withSeparators);
+  int encodeInto (long id, boolean withSeparators, byte [] dst, int off);
+  int decode (CharSequence src, int start, int end, long [] out, int index);
+}
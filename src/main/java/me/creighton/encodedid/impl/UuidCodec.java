@@ -0,0 +1,84 @@
+package me.creighton.encodedid.impl;
+
+import me.creighton.encodedid.EncodedIdException;
+import me.creighton.encodedid.IEncodedId;
+import me.creighton.encodedid.IUuidEncoder;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/*
+  An immutable IUuidEncoder that is safe to share between threads; see CompiledCodec.
+ */
+public final class UuidCodec extends CompiledCodec implements IUuidEncoder {
+
+  private final UuidEncoder encoder;
+
+  public UuidCodec (IEncodedId.Builder builder) {
+    this(builder, null);
+  }
+
+  /**
+   * Uses shared if it holds the tables for the builder's alphabet; see CodecCache.
+   */
+  UuidCodec (IEncodedId.Builder builder, AlphabetTables shared) {
+    this(new UuidEncoder(builder, shared));
+  }
+
+  private UuidCodec (UuidEncoder encoder) {
+    super(encoder);
+    this.encoder = encoder;
+  }
+
+  @Override
+  public boolean fixedWidth () {
+    return settings().fixedWidth;
+  }
+
+  @Override
+  public void fixedWidth (boolean fixedWidth) {
+    throwImmutable("fixedWidth");
+  }
+
+  // Public Work Methods
+
+  @Override
+  public String encodeId (UUID id) throws EncodedIdException {
+    return this.encoder.encodeId(id);
+  }
+
+  @Override
+  public String encodeIdWithoutSeparator (UUID id) throws EncodedIdException {
+    return this.encoder.encodeIdWithoutSeparator(id);
+  }
+
+  @Override
+  public UUID decodeId (String encodedId) throws EncodedIdException {
+    return this.encoder.decodeId(encodedId);
+  }
+
+  @Override
+  public UUID decodeId (CharSequence src, int start, int end) throws EncodedIdException {
+    return this.encoder.decodeId(src, start, end);
+  }
+
+  @Override
+  public UUID decodeId (ByteBuffer src) throws EncodedIdException {
+    return this.encoder.decodeId(src);
+  }
+
+  @Override
+  public int encodeTo (UUID id, byte [] dst, int off) throws EncodedIdException {
+    return this.encoder.encodeTo(id, dst, off);
+  }
+
+  @Override
+  public int encodeTo (UUID id, ByteBuffer dst) throws EncodedIdException {
+    return this.encoder.encodeTo(id, dst);
+  }
+
+  @Override
+  public int maxEncodedLength () {
+    return this.encoder.maxEncodedLength();
+  }
+}
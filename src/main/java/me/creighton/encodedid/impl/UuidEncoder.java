@@ -4,33 +4,58 @@ import me.creighton.encodedid.EncodedIdException;
 import me.creighton.encodedid.IEncodedId;
 import me.creighton.encodedid.IUuidEncoder;
 
-import java.math.BigInteger;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
 import java.util.UUID;
 
-import static me.creighton.encodedid.Utilities.bigIntegerToUuid;
-import static me.creighton.encodedid.Utilities.uuidToBigInteger;
-
 /*
 
-  This encoder simply wraps a BigInteger encoder so that the encoding
-  is a matter of extracting the 2 64-bit integers from the UUID and
-  creating a BigInteger from them and then encoding that BigInteger.
+  This encoder treats the UUID as an unsigned 128-bit integer held in its
+  two 64-bit halves, and converts it to and from digits directly, without
+  going through a BigInteger. The encoding is the same as encoding that
+  integer with a BigIntegerEncoder.
+
+  Encoding divides the 128-bit value by chunkPower (the largest power of the
+  base that fits in an int) a piece at a time: the high half with an unsigned
+  64-bit division, and the remainder with the low half 32 bits at a time, so
+  nothing overflows. Once the high half is zero the rest is a plain long.
 
-  Decoding is the reverse process. Decode to a BigInteger, then extract
-  the two long integers and compose a UUID.
+  Decoding is the reverse process, multiplying the 128-bit value by chunkPower
+  and adding each chunk of digits. Like the BigInteger route, a value wider than
+  128 bits keeps its low 128 bits and a negative one is two's complemented.
 
   Watch out for sign extension!!!
 
+  If fixedWidth, every UUID is padded to the number of digits the largest UUID
+  needs, so all encodings have the same length.
+
  */
 public class UuidEncoder extends EncodedId implements IUuidEncoder {
 
-  private BigIntegerEncoder bigIntegerEncoder;
+  private static final long LOW_32 = 0xffffffffL;
 
   // Public Constructors
 
   public UuidEncoder (IEncodedId.Builder builder) {
     super(builder);
-    this.bigIntegerEncoder = new BigIntegerEncoder(builder);
+  }
+
+  UuidEncoder (IEncodedId.Builder builder, AlphabetTables shared) {
+    super(builder, shared);
+  }
+
+  // Getters and setters
+
+  @Override
+  public boolean fixedWidth () {
+    return settings().fixedWidth;
+  }
+
+  @Override
+  public void fixedWidth (boolean fixedWidth) {
+    update(b -> b.fixedWidth(fixedWidth));
   }
 
   // Public Work Methods
@@ -38,30 +63,210 @@ public class UuidEncoder extends EncodedId implements IUuidEncoder {
   @Override
   public String encodeId (UUID id) throws EncodedIdException {
 
-    String s = encodeIdWithoutSeparator(id);
-
-    return addSeparators(s);
+    return encode(id, useSeparator());
   }
 
   @Override
   public String encodeIdWithoutSeparator (UUID id) throws EncodedIdException {
 
-    BigInteger bigInteger = uuidToBigInteger(id);
-    String s = this.bigIntegerEncoder.encodeIdWithoutSeparator(bigInteger);
+    return encode(id, false);
+  }
 
-    return s;
+  @Override
+  public int maxEncodedLength () {
+    return encodedLength(uuidDigits(), false, useSeparator());
+  }
+
+  @Override
+  public int encodeTo (UUID id, byte [] dst, int off) throws EncodedIdException {
+    boolean withSeparators = useSeparator();
+    byte [] digits = new byte[Long.SIZE * 2];
+    int from = digitsOf(id, digits);
+
+    Objects.checkFromIndexSize(off, encodedLength(digits.length - from, false, withSeparators), dst.length);
+    return writeEncoding(digits, from, digits.length, false, withSeparators, dst, off);
+  }
+
+  @Override
+  public int encodeTo (UUID id, ByteBuffer dst) throws EncodedIdException {
+    boolean withSeparators = useSeparator();
+    byte [] digits = new byte[Long.SIZE * 2];
+    int from = digitsOf(id, digits);
+    int length = encodedLength(digits.length - from, false, withSeparators);
 
+    if (dst.remaining() < length) {
+      throw new BufferOverflowException();
+    }
+    if (dst.hasArray()) {
+      writeEncoding(digits, from, digits.length, false, withSeparators, dst.array(), dst.arrayOffset() + dst.position());
+    } else {
+      byte [] buffer = new byte[length];
+      writeEncoding(digits, from, digits.length, false, withSeparators, buffer, 0);
+      dst.put(dst.position(), buffer);
+    }
+    dst.position(dst.position() + length);
+    return length;
+  }
+
+  protected String encode (UUID id, boolean withSeparators) {
+    byte [] digits = new byte[Long.SIZE * 2];   // enough for base 2
+    int from = digitsOf(id, digits);
+
+    byte [] buffer = new byte[encodedLength(digits.length - from, false, withSeparators)];
+    int length = writeEncoding(digits, from, digits.length, false, withSeparators, buffer, 0);
+
+    return new String(buffer, 0, length, StandardCharsets.ISO_8859_1);
   }
 
   @Override
   public UUID decodeId(String encodedId) throws EncodedIdException {
-    UUID id;
-    BigInteger bigInteger = this.bigIntegerEncoder.decodeId(encodedId);
+    if (null == encodedId) {
+      // Invalid encodedId
+      throwDecodeFailure(NO_DIGITS, "", 0, 0); // null has no digits
+      // Never returns to here
+    }
+    return decodeId(encodedId, 0, encodedId.length());
+  }
 
-    id = bigIntegerToUuid(bigInteger);
+  @Override
+  public UUID decodeId (ByteBuffer src) throws EncodedIdException {
+    UUID id = decodeId(latin1View(src), 0, src.remaining());
 
+    src.position(src.limit());
     return id;
   }
 
+  @Override
+  public UUID decodeId (CharSequence src, int start, int end) throws EncodedIdException {
+    Objects.checkFromToIndex(start, end, src.length());
+
+    byte [] digits = new byte[end - start];
+    int count = scanDigits(src, start, end, digits);
+    int base = numberBase();
+    int chunkDigits = chunkDigits();
+    long chunkPower = chunkPower();
+    long hi = 0;
+    long lo = 0;
+    int i = 0;
+
+    // The leading chunk may be short, so every later chunk is a full chunkDigits long.
+
+    for (int length = (Math.abs(count) - 1) % chunkDigits + 1; i < Math.abs(count); length = chunkDigits) {
+      long chunk = 0;
+
+      for (int j = 0; j < length; j++) {
+        chunk = chunk * base + (digits[i++] & 0xff);
+      }
+
+      // (hi, lo) = (hi, lo) * chunkPower + chunk, modulo 2^128
+      long carry = Math.multiplyHigh(lo, chunkPower) + ((lo >> 63) & chunkPower);  // unsigned high half
+      hi = hi * chunkPower + carry;
+      lo = lo * chunkPower;
+      long sum = lo + chunk;
+      if (Long.compareUnsigned(sum, lo) < 0) {
+        hi++;
+      }
+      lo = sum;
+    }
+
+    if (count < 0) {
+      hi = ~hi;
+      lo = -lo;
+      if (lo == 0) {
+        hi++;
+      }
+    }
+    return new UUID(hi, lo);
+  }
+
+  // Non-public methods
+
+  /**
+   * Writes the digits of id so they end at the end of digits, and returns the index of the first,
+   * which is earlier if fixedWidth.
+   */
+  protected int digitsOf (UUID id, byte [] digits) {
+    int from = toDigits(id.getMostSignificantBits(), id.getLeastSignificantBits(), digits);
+
+    return fixedWidth() ? digits.length - uuidDigits() : from;
+  }
+
+  /**
+   * The number of digits the largest UUID, 2^128 - 1, needs in this base, kept with the alphabet tables.
+   */
+  protected int uuidDigits () {
+    return tables().maxUuidDigits;
+  }
+
+  /**
+   * Writes the digit values of the unsigned 128-bit value (hi, lo), most significant first,
+   * so they end at the end of digits. Returns the index of the first digit; zero is one digit.
+   */
+  protected int toDigits (long hi, long lo, byte [] digits) {
+    int base = numberBase();
+    int shift = digitShift();
+    int pos = digits.length;
+
+    if (shift != 0) {
+      int mask = base - 1;
+
+      // Power of two base: no division, just shift the 128 bits right.
+      do {
+        digits[--pos] = (byte) (lo & mask);
+        lo = (lo >>> shift) | (hi << (Long.SIZE - shift));
+        hi >>>= shift;
+      } while ((hi | lo) != 0);
+      return pos;
+    }
+
+    int chunkDigits = chunkDigits();
+    long chunkPower = chunkPower();
+
+    while (hi != 0) {
+      // (hi, lo) / chunkPower: the high half, then the low half 32 bits at a time.
+      long remainder = Long.remainderUnsigned(hi, chunkPower);
+      hi = Long.divideUnsigned(hi, chunkPower);
+
+      long t = (remainder << 32) | (lo >>> 32);
+      long q1 = t / chunkPower;
+      t = ((t % chunkPower) << 32) | (lo & LOW_32);
+      lo = (q1 << 32) | (t / chunkPower);
+
+      pos = putChunk((int) (t % chunkPower), chunkDigits, digits, pos);
+    }
+
+    if (lo < 0) {
+      // Unsigned low half: one unsigned division and it's an ordinary long.
+      int chunk = (int) Long.remainderUnsigned(lo, chunkPower);
+      lo = Long.divideUnsigned(lo, chunkPower);
+      pos = putChunk(chunk, chunkDigits, digits, pos);
+    }
+
+    while (lo >= chunkPower) {
+      pos = putChunk((int) (lo % chunkPower), chunkDigits, digits, pos);
+      lo /= chunkPower;
+    }
+
+    int chunk = (int) lo;
+    do {
+      digits[--pos] = (byte) (chunk % base);
+      chunk /= base;
+    } while (chunk != 0);
+
+    while (pos < digits.length - 1 && digits[pos] == 0) {
+      pos++;   // full chunks above may have left leading zeros
+    }
+    return pos;
+  }
+
+  private int putChunk (int chunk, int chunkDigits, byte [] digits, int pos) {
+    int base = numberBase();
+
+    for (int i = 0; i < chunkDigits; i++) {
+      digits[--pos] = (byte) (chunk % base);
+      chunk /= base;
+    }
+    return pos;
+  }
 
 }
@@ -46,6 +46,9 @@ public class OTPEncoder implements IOTPEncoder {
             IEncodedId.getEncodedIdBuilder(builder.getAlphabet())  // returns EncodedIdBuilder
 //              .padWidth(this.otpLength)
               .separator(false)
+              .setMinId(this.minOtpId)
+              .setMaxId(this.maxOtpId)
+              .rangeTableLimit(builder.getRangeTableLimit())
     );
   }
 
@@ -65,6 +68,11 @@ public class OTPEncoder implements IOTPEncoder {
     return this.maxOtpId;
   }
 
+  @Override
+  public long getRangeTableBytes() {
+    return this.longEncoder.rangeTableBytes();
+  }
+
 
   /**
    * Encode a random number in the range 1:maxOtpId
@@ -103,6 +111,7 @@ public class OTPEncoder implements IOTPEncoder {
     private long minOtpId;
     private long maxOtpId;
     private String alphabet;
+    private int rangeTableLimit;
 
     public OTPEncoderBuilder () {
       // All attributes have default values so no required parameters in the constructor.
@@ -187,6 +196,27 @@ public class OTPEncoder implements IOTPEncoder {
       return this;
     }
 
+    @Override
+    public int getRangeTableLimit () {
+      return this.rangeTableLimit;
+    }
+
+    /**
+     *
+     * @return IOTPEncoderBuilder
+     *
+     * With a limit above the number of OTPs in the range, every OTP is
+     * encoded once, the first time one is needed, and after that encoding
+     * is a lookup. The default 0 never does. A million OTPs of 6 characters
+     * take 7 MB.
+     */
+
+    @Override
+    public IOTPEncoderBuilder withRangeTableLimit (int limit) {
+      this.rangeTableLimit = Math.max(limit, 0);
+      return this;
+    }
+
     @Override
     public IOTPEncoder build () {
       return new OTPEncoder(this);
@@ -0,0 +1,160 @@
+package me.creighton.encodedid.impl;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import static me.creighton.encodedid.EncodingConstants.NEGATIVE_SIGN;
+import static me.creighton.encodedid.impl.EncodedId.NOT_IN_ALPHABET;
+
+/*
+
+  BatchValidator with the jdk.incubator.vector API. Most ids in a batch are plain:
+  an optional sign and then nothing but digits. For those, a vector of characters
+  at a time is checked and summed: the values and Luhn addends of all its lanes
+  are gathered from tables indexed by character in one step each, and which lanes
+  have Luhn factor 2 depends only on the parity of the id's length, so the check
+  sum is a few lane-wise operations and one reduction. Anything else, like an id
+  with separators or a character not in the alphabet, is left to the scalar rules,
+  so the answers are always the same as BatchValidator's. A plain id with a wrong
+  check character is rejected here and not scanned again.
+
+  Lanes past the end of an id hold the first character of the alphabet, whose
+  value and Luhn addend are both zero, so they change nothing.
+
+  Only BatchValidator.build loads this class, and only if the builder asks for it
+  and the module is present. It is compiled by the vector profile alone, from
+  src/main/vector, so that the default build doesn't need the incubating module.
+
+ */
+final class VectorBatchValidator extends BatchValidator {
+
+  // 256 bits: eight characters, as many as most ids have after the first eight. Wider species
+  // have been seen to fail on some virtualized AVX-512 hosts.
+  private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_256;
+  private static final VectorSpecies<Short> CHARS = ShortVector.SPECIES_128;  // as many lanes
+
+  private static final int VALID = 0;
+  private static final int INVALID = 1;
+  private static final int NOT_PLAIN = 2;
+
+  private final int width;            // characters at or above this are never in the alphabet
+  private final int [] valueByChar;   // the value of each character, and NOT_IN_ALPHABET at width
+  private final int [] luhnByChar;    // the Luhn addend of each character with factor 2
+  private final char zero;            // the character with value 0
+  private final IntVector evenLanes;  // -1 in even lanes, 0 in odd ones
+  private final IntVector oddLanes;
+
+  VectorBatchValidator (BatchValidator settings) {
+    super(settings);
+
+    int [] decode = this.decode;
+
+    this.width = decode.length;
+    this.valueByChar = Arrays.copyOf(decode, this.width + 1);
+    this.valueByChar[this.width] = NOT_IN_ALPHABET;
+    this.luhnByChar = new int[this.width + 1];
+    for (int c = 0; c < this.width; c++) {
+      this.luhnByChar[c] = (decode[c] < 0) ? 0 : this.tables.luhnDoubled[decode[c]];
+    }
+    this.zero = this.tables.alphabet.charAt(0);
+
+    int [] even = new int[SPECIES.length()];
+    for (int k = 0; k < even.length; k += 2) {
+      even[k] = -1;
+    }
+    this.evenLanes = IntVector.fromArray(SPECIES, even, 0);
+    this.oddLanes = this.evenLanes.not();
+  }
+
+  @Override
+  public boolean isVectorized () {
+    return true;
+  }
+
+  @Override
+  public BitSet validateAll (CharSequence [] ids) {
+    BitSet invalid = new BitSet(ids.length);
+    char [] chars = new char[SPECIES.length()];
+    int [] index = new int[SPECIES.length()];
+
+    for (int i = 0; i < ids.length; i++) {
+      CharSequence id = ids[i];
+
+      int plain = (null == id) ? INVALID : checkPlain(id, chars, index);
+
+      if (INVALID == plain || (NOT_PLAIN == plain && ! isValid(id))) {
+        invalid.set(i);
+      }
+    }
+    return invalid;
+  }
+
+  /**
+   * VALID or INVALID if id is an optional sign followed by at least one digit, or two if
+   * checked, and nothing else; then only the check character can make it invalid. NOT_PLAIN
+   * for anything else, which the scalar rules decide. chars and index are scratch space a
+   * vector long.
+   */
+  private int checkPlain (CharSequence id, char [] chars, int [] index) {
+    int lanes = SPECIES.length();
+    int start = (id.length() > 0 && id.charAt(0) == NEGATIVE_SIGN) ? 1 : 0;
+    int n = id.length() - start;
+
+    if (n < (this.checked ? 2 : 1) || (this.strict && id.length() > this.segment)
+        || (null != this.template && this.template.separators(id.length()) > 0)) {
+      return NOT_PLAIN;  // too short, or strict and needs separators
+    }
+
+    // Counting from the right, with the last character first, odd positions have factor 2.
+    // So the lanes with factor 2 are the even ones if n is even, and the odd ones if n is odd.
+
+    IntVector doubled = ((n & 1) == 0) ? this.evenLanes : this.oddLanes;
+    IntVector sum = IntVector.zero(SPECIES);
+    int bad = 0;
+
+    for (int from = 0; from < n; from += lanes) {
+      int count = Math.min(lanes, n - from);
+
+      copyChars(id, start + from, count, chars);
+      if (count < lanes) {
+        Arrays.fill(chars, count, lanes, this.zero);
+      }
+
+      // Widen the characters without sign extension and clamp them to the tables.
+
+      ((IntVector) ShortVector.fromCharArray(CHARS, chars, 0)
+          .convertShape(VectorOperators.S2I, SPECIES, 0))
+          .and(0xffff)
+          .min(this.width)
+          .intoArray(index, 0);
+
+      IntVector values = IntVector.fromArray(SPECIES, this.valueByChar, 0, index, 0);
+      IntVector addends = IntVector.fromArray(SPECIES, this.luhnByChar, 0, index, 0);
+
+      bad |= values.reduceLanes(VectorOperators.OR);  // NOT_IN_ALPHABET and IGNORABLE are negative
+      sum = sum.add(values).add(addends.sub(values).and(doubled));  // addends where doubled
+    }
+    if (bad < 0) {
+      return NOT_PLAIN;  // maybe just ignorable, as in tolerant decoding
+    }
+    if (this.checked && sum.reduceLanes(VectorOperators.ADD) % this.tables.numberBase != 0) {
+      return INVALID;
+    }
+    return VALID;
+  }
+
+  private static void copyChars (CharSequence id, int from, int count, char [] chars) {
+    if (id instanceof String) {
+      ((String) id).getChars(from, from + count, chars, 0);
+    } else {
+      for (int k = 0; k < count; k++) {
+        chars[k] = id.charAt(from + k);
+      }
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package me.creighton.encodedid;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static me.creighton.encodedid.EncodingConstants.*;
+import static me.creighton.encodedid.IEncodedId.getEncodedIdBuilder;
+import static me.creighton.encodedid.IEncodedId.getTightlyEncodedIdBuilder;
+
+/*
+  Settings and damaged ids shared by the tests that compare one way of encoding or decoding
+  with another. Every call returns new builders, so a test can change them as it likes.
+ */
+final class EncoderFixtures {
+
+  // Characters that are separators, signs, in some alphabets and not in others, or not ASCII.
+  static final String MANGLE_CHARACTERS = "-~0aZ_ é";
+
+  private EncoderFixtures () {
+  }
+
+  /**
+   * The common settings: plain, strict separators, the big alphabet, another base, and padding
+   * wider than any long, most of them checked, followed by any extra builders the test needs.
+   */
+  static IEncodedId.Builder [] builders (IEncodedId.Builder... extra) {
+    IEncodedId.Builder [] common = {
+        getEncodedIdBuilder(),
+        getEncodedIdBuilder().checkedEncoder(true).separator(true).segmentLength(3).strictSeparators(true),
+        getTightlyEncodedIdBuilder().checkedEncoder(true),
+        getEncodedIdBuilder(URL_SAFE_32_ALPHABET, URL_SAFE_32_CHARACTER_SET).separator(true),
+        getEncodedIdBuilder(NUMBERS).padWidth(30).checkedEncoder(true)
+    };
+    IEncodedId.Builder [] all = Arrays.copyOf(common, common.length + extra.length);
+
+    System.arraycopy(extra, 0, all, common.length, extra.length);
+    return all;
+  }
+
+  /**
+   * s with one of its characters replaced by one of MANGLE_CHARACTERS.
+   */
+  static String replaceOne (String s, Random random) {
+    return mangle(s, 0, random);
+  }
+
+  /**
+   * s with one of MANGLE_CHARACTERS put in place of a character if kind is 0, inserted if it
+   * is 1, and with a character dropped otherwise.
+   */
+  static String mangle (String s, int kind, Random random) {
+    int at = random.nextInt(s.length());
+    char c = MANGLE_CHARACTERS.charAt(random.nextInt(MANGLE_CHARACTERS.length()));
+
+    return switch (kind) {
+      case 0 -> s.substring(0, at) + c + s.substring(at + 1);
+      case 1 -> s.substring(0, at) + c + s.substring(at);
+      default -> s.substring(0, at) + s.substring(at + 1);
+    };
+  }
+}
@@ -0,0 +1,153 @@
+package me.creighton.encodedid;
+
+// Like ShowApp, this is not a unit test and surefire doesn't pick it up by default.
+// It shows how the long encoder performs, and is run by hand:
+//
+//    mvn test -Dtest=ShowLongEncoderBenchmark
+//
+// Each measurement is a plain timed loop after a warm up, so treat the numbers as relative.
+// The reference columns convert with one 64-bit division (or multiplication) per digit,
+// which is what LongEncoder did before it converted in int-sized chunks. The specialized
+// columns run the class LongSpecializer generates for the configuration.
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static me.creighton.encodedid.EncodingConstants.*;
+import static me.creighton.encodedid.IEncodedId.getEncodedIdBuilder;
+import static me.creighton.encodedid.IEncodedId.getTightlyEncodedIdBuilder;
+
+public class ShowLongEncoderBenchmark {
+
+  static final int IDS = 1 << 16;
+  static final int ROUNDS = 40;
+  static final int WARMUP_ROUNDS = 20;
+
+  static long sink;  // keeps the JIT from discarding the work
+
+  @Test
+  public void showChunkedConversion () {
+    String [][] alphabets = {
+        {"base 10", NUMBERS},
+        {"base 30", DEFAULT_ALPHABET},
+        {"base 62", MEDIUM_CHARACTER_SET},
+        {"base 74", BIG_ALPHABET}
+    };
+    long [] ids = randomIds();
+
+    System.out.printf("%n%-8s %14s %14s %14s %14s%n", "", "encode ns/id", "reference", "decode ns/id", "reference");
+    for (String [] alphabet : alphabets) {
+      ILongEncoder encoder = ILongEncoder.build(getEncodedIdBuilder(alphabet[1]));
+      String [] encoded = new String[IDS];
+
+      for (int i = 0; i < IDS; i++) {
+        encoded[i] = encoder.encodeId(ids[i]);
+      }
+
+      System.out.printf("%-8s %14.1f %14.1f %14.1f %14.1f%n", alphabet[0],
+          time(() -> { for (long id : ids) sink += encoder.encodeId(id).length(); }),
+          time(() -> { for (long id : ids) sink += referenceEncode(id, alphabet[1]).length(); }),
+          time(() -> { for (String s : encoded) sink += encoder.decodeId(s); }),
+          time(() -> { for (String s : encoded) sink += referenceDecode(s, alphabet[1]); }));
+    }
+  }
+
+  @Test
+  public void showSpecializedEncoders () {
+    IEncodedId.Builder [][] configurations = {
+        {getEncodedIdBuilder()},
+        {getEncodedIdBuilder().checkedEncoder(true).separator(true).segmentLength(3).padWidth(9)},
+        {getTightlyEncodedIdBuilder().checkedEncoder(true)},
+        {getEncodedIdBuilder(URL_SAFE_32_ALPHABET, URL_SAFE_32_CHARACTER_SET).separator(true)}
+    };
+    String [] names = {"default", "checked", "base 74", "base 32"};
+    long [] ids = randomIds();
+
+    System.out.printf("%n%-8s %14s %14s %14s %14s%n", "", "encode ns/id", "specialized", "decode ns/id", "specialized");
+    for (int c = 0; c < configurations.length; c++) {
+      IEncodedId.Builder builder = configurations[c][0];
+      ILongEncoder generic = builder.compileLongEncoder();
+      ILongEncoder specialized = builder.specialized(true).compileLongEncoder();
+      String [] encoded = new String[IDS];
+
+      generic.encodeAll(ids, encoded);
+      System.out.printf("%-8s %14.1f %14.1f %14.1f %14.1f%n", names[c],
+          time(() -> { for (long id : ids) sink += generic.encodeId(id).length(); }),
+          time(() -> { for (long id : ids) sink += specialized.encodeId(id).length(); }),
+          time(() -> { for (String s : encoded) sink += generic.decodeId(s); }),
+          time(() -> { for (String s : encoded) sink += specialized.decodeId(s); }));
+    }
+  }
+
+  @Test
+  public void showTwoDigitTables () {
+    IEncodedId.Builder [][] configurations = {
+        {getEncodedIdBuilder()},
+        {getEncodedIdBuilder().checkedEncoder(true).separator(true).segmentLength(3).padWidth(9)},
+        {getTightlyEncodedIdBuilder().checkedEncoder(true)},
+        {getEncodedIdBuilder(NUMBERS)}
+    };
+    String [] names = {"default", "checked", "base 74", "base 10"};
+    long [] ids = randomIds();
+
+    System.out.printf("%n%-8s %14s %14s %14s %14s%n", "", "encode ns/id", "two digits", "decode ns/id", "two digits");
+    for (int c = 0; c < configurations.length; c++) {
+      IEncodedId.Builder builder = configurations[c][0];
+      ILongEncoder generic = builder.compileLongEncoder();
+      ILongEncoder pairs = builder.twoDigitTables(true).compileLongEncoder();
+      String [] encoded = new String[IDS];
+
+      generic.encodeAll(ids, encoded);
+      System.out.printf("%-8s %14.1f %14.1f %14.1f %14.1f%n", names[c],
+          time(() -> { for (long id : ids) sink += generic.encodeId(id).length(); }),
+          time(() -> { for (long id : ids) sink += pairs.encodeId(id).length(); }),
+          time(() -> { for (String s : encoded) sink += generic.decodeId(s); }),
+          time(() -> { for (String s : encoded) sink += pairs.decodeId(s); }));
+    }
+  }
+
+  static long [] randomIds () {
+    Random random = new Random(7);
+    long [] ids = new long[IDS];
+
+    for (int i = 0; i < IDS; i++) {
+      ids[i] = (random.nextLong() >>> 1) >>> random.nextInt(40);  // positive, mostly long ones
+    }
+    return ids;
+  }
+
+  static double time (Runnable round) {
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      round.run();
+    }
+
+    long start = System.nanoTime();
+    for (int i = 0; i < ROUNDS; i++) {
+      round.run();
+    }
+    return (System.nanoTime() - start) / (double) ROUNDS / IDS;
+  }
+
+  static String referenceEncode (long id, String alphabet) {
+    byte [] buffer = new byte[64];
+    int base = alphabet.length();
+    int pos = buffer.length;
+
+    do {
+      buffer[--pos] = (byte) alphabet.charAt((int) (id % base));
+      id /= base;
+    } while (id > 0);
+    return new String(buffer, pos, buffer.length - pos, java.nio.charset.StandardCharsets.ISO_8859_1);
+  }
+
+  static long referenceDecode (String s, String alphabet) {
+    int base = alphabet.length();
+    long id = 0;
+
+    for (int i = 0; i < s.length(); i++) {
+      id = id * base + alphabet.indexOf(s.charAt(i));
+    }
+    return id;
+  }
+}
@@ -0,0 +1,61 @@
+package me.creighton.encodedid;
+
+import me.creighton.encodedid.impl.BatchValidator;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.BitSet;
+import java.util.Random;
+
+import static me.creighton.encodedid.EncodingConstants.*;
+import static me.creighton.encodedid.IEncodedId.getEncodedIdBuilder;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestBatchValidator {
+
+  @Test
+  public void validationTests () {
+    IEncodedId.Builder [] builders = EncoderFixtures.builders(
+        getEncodedIdBuilder().checkedEncoder(true).separator(true).segmentLength(4),
+        getEncodedIdBuilder(URL_SAFE_32_ALPHABET, URL_SAFE_32_CHARACTER_SET).separator(true).strictSeparators(true),
+        getEncodedIdBuilder(NUMBERS).checkedEncoder(true).padWidth(12)
+    );
+    boolean vectorModule = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();  // mvn -Pvector
+    Random random = new Random(20231020L);
+
+    for (IEncodedId.Builder b : builders) {
+      IBatchValidator byDefault = IBatchValidator.build(b);
+      IBatchValidator validator = IBatchValidator.build(b.vectorValidation(true));
+      IBatchValidator scalar = new BatchValidator(b);
+      IBigIntegerEncoder encoder = IBigIntegerEncoder.build(b);
+      CharSequence [] ids = new CharSequence[1003];  // not a whole number of vectors
+      BitSet expected = new BitSet();
+
+      assertEquals(vectorModule, validator.isVectorized());
+      assertFalse(byDefault.isVectorized());
+      assertFalse(scalar.isVectorized());
+
+      for (int i = 0; i < ids.length; i++) {
+        String s = encoder.encodeId(new BigInteger(1 + random.nextInt(100), random).negate().add(BigInteger.valueOf(i)));
+
+        // Leave a quarter alone; replace, insert or drop a character in the rest.
+
+        ids[i] = (i % 4 == 0) ? s : EncoderFixtures.mangle(s, i % 4 - 1, random);
+        try {
+          encoder.decodeId(ids[i].toString());
+        } catch (EncodedIdException e) {
+          expected.set(i);
+        }
+      }
+      ids[7] = null;
+      ids[8] = "";
+      ids[9] = "~";
+      expected.set(7, 10);
+
+      assertEquals(expected, validator.validateAll(ids));
+      assertEquals(expected, byDefault.validateAll(ids));
+      assertEquals(expected, scalar.validateAll(ids));
+      assertFalse(expected.isEmpty());
+    }
+  }
+}
@@ -5,12 +5,14 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigInteger;
+import java.util.Random;
 
 import static me.creighton.encodedid.EncodingConstants.*;
 import static me.creighton.encodedid.IEncodedId.getEncodedIdBuilder;
 import static me.creighton.encodedid.IEncodedId.getTightlyEncodedIdBuilder;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TestBigIntegerEncoder {
 
@@ -320,6 +322,128 @@ public class TestBigIntegerEncoder {
 
   }
 
+  @Test
+  public void rangeDecodeTests () {
+    BigInteger d = BigInteger.valueOf(Long.MAX_VALUE).multiply(BigInteger.valueOf(-1000));
+    String s = encoder5.encodeId(d);
+    String line = "key=" + s + "&next";
+
+    assertEquals(d, encoder5.decodeId(line, 4, 4 + s.length()));
+    assertEquals(d, encoder5.decodeId(new StringBuilder(s), 0, s.length()));
+    assertThrows(EncodedIdException.class, () -> encoder5.decodeId(line, 4, 3 + s.length()));
+  }
+
+  @Test
+  public void strictSeparatorTests () {
+    IBigIntegerEncoder strict = IBigIntegerEncoder.build(
+                getEncodedIdBuilder()
+                .separator(true)
+                .strictSeparators(true)
+                .checkedEncoder(true));
+    BigInteger d = BigInteger.valueOf(Long.MAX_VALUE).multiply(BigInteger.valueOf(-1000));
+    String s = strict.encodeId(d);
+
+    assertEquals(d, strict.decodeId(s));
+    assertThrows(EncodedIdException.class, () -> strict.decodeId(s.replace("-", "")));
+    assertThrows(EncodedIdException.class, () -> strict.decodeId(s + "-"));
+  }
+
+  @Test
+  public void largeValueTests () {
+    Random random = new Random(20231008L);
+    IBigIntegerEncoder parallel = IBigIntegerEncoder.build(getTightlyEncodedIdBuilder().checkedEncoder(true));
+    parallel.parallelConversion(true);
+
+    for (int bits : new int[] {64, 65, 1000, 4999, 20000, 100000}) {
+      BigInteger d = new BigInteger(bits, random).setBit(bits - 1).negate();
+      String s = encoder5.encodeId(d);
+
+      // One digit at a time, the way the encoder used to convert.
+      StringBuilder expected = new StringBuilder();
+      for (BigInteger x = d.abs(); x.signum() > 0; x = x.divide(BigInteger.valueOf(BIG_ALPHABET.length()))) {
+        expected.append(BIG_ALPHABET.charAt(x.mod(BigInteger.valueOf(BIG_ALPHABET.length())).intValue()));
+      }
+      expected.append(NEGATIVE_SIGN).reverse();
+
+      assertEquals(expected.toString(), s.substring(0, s.length() - 1));
+      assertEquals(d, encoder5.decodeId(s));
+      assertEquals(s, parallel.encodeId(d));
+      assertEquals(d, parallel.decodeId(s));
+    }
+    assertEquals(BigInteger.ZERO, encoder3.decodeId(encoder3.encodeId(BigInteger.ZERO)));
+  }
+
+  @Test
+  public void longValueTests () {
+    IEncodedId.Builder [] builders = {
+        getEncodedIdBuilder(),
+        getEncodedIdBuilder().checkedEncoder(true).separator(true).segmentLength(3).padWidth(30),
+        getEncodedIdBuilder(NUMBERS).checkedEncoder(true),
+        getTightlyEncodedIdBuilder()
+    };
+    Random random = new Random(20231026L);
+    BigInteger two63 = BigInteger.ONE.shiftLeft(63);
+
+    for (IEncodedId.Builder b : builders) {
+      IBigIntegerEncoder encoder = IBigIntegerEncoder.build(b);
+      ILongEncoder signed = ILongEncoder.build(b);
+      ILongEncoder unsigned = ILongEncoder.build(b.unsigned(true));
+      b.unsigned(false);
+
+      // Values that fit in a long encode the way the long encoder does.
+
+      for (int i = 0; i < 3000; i++) {
+        long id = (i < 4) ? new long[] {0, -1, Long.MIN_VALUE, Long.MAX_VALUE}[i] : random.nextLong() >> random.nextInt(64);
+        String s = encoder.encodeId(BigInteger.valueOf(id));
+
+        assertEquals(signed.encodeId(id), s);
+        assertEquals(BigInteger.valueOf(id), encoder.decodeId(s));
+      }
+
+      // Either side of 2^63 and 2^64, where decoding has to go over to BigInteger.
+
+      for (BigInteger id : new BigInteger[] {two63.subtract(BigInteger.ONE), two63, two63.add(BigInteger.ONE),
+                                             two63.shiftLeft(1).subtract(BigInteger.ONE), two63.shiftLeft(1)}) {
+        String s = encoder.encodeId(id);
+
+        if (id.bitLength() <= 64) {
+          assertEquals(unsigned.encodeId(id.longValue()), s);
+        }
+        assertEquals(id, encoder.decodeId(s));
+        assertEquals(id.negate(), encoder.decodeId(encoder.encodeId(id.negate())));
+      }
+
+      // Longer than any long's encoding, but only by leading zeros: still a small value.
+
+      String zeros = String.valueOf(encoder.alphabet().charAt(0)).repeat(40);
+      assertEquals(BigInteger.valueOf(12345), encoder.decodeId(zeros + encoder.encodeIdWithoutSeparator(BigInteger.valueOf(12345))));
+
+      // Damaged encodings fail where the long decoder fails. Out of range there is either too big
+      // for a long here, or too long to read there.
+
+      long [] out = new long[1];
+
+      for (int i = 0; i < 3000; i++) {
+        BigInteger id = new BigInteger(1 + random.nextInt(80), random).multiply(BigInteger.valueOf(i % 2 * 2 - 1));
+        String s = EncoderFixtures.replaceOne(encoder.encodeId(id), random);
+        int status = signed.tryDecodeId(s, 0, s.length(), out, 0);
+
+        if (status == IEncodedId.DECODED) {
+          assertEquals(BigInteger.valueOf(out[0]), encoder.decodeId(s), s);
+        } else if (status == IEncodedId.OUT_OF_RANGE) {
+          try {
+            BigInteger decoded = encoder.decodeId(s);
+            assertTrue(decoded.bitLength() >= 63 && ! decoded.equals(BigInteger.ONE.shiftLeft(63).negate()), s);
+          } catch (EncodedIdException e) {
+            // Too long for the long decoder to read, and invalid.
+          }
+        } else {
+          assertThrows(EncodedIdException.class, () -> encoder.decodeId(s), s);
+        }
+      }
+    }
+  }
+
   private void showMessage (String msg) {
     if (SHOW) {
       System.out.printf("%s\n", msg);
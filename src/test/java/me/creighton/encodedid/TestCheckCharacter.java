@@ -0,0 +1,116 @@
+package me.creighton.encodedid;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static me.creighton.encodedid.EncodingConstants.*;
+import static me.creighton.encodedid.IEncodedId.getEncodedIdBuilder;
+import static me.creighton.encodedid.IEncodedId.getTightlyEncodedIdBuilder;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/*
+  The encoders compute the Luhn mod N check character while they produce or consume digits.
+  These tests hold them to the two-pass algorithm they replaced, as given on Wikipedia:
+  https://en.wikipedia.org/wiki/Luhn_mod_N_algorithm
+ */
+public class TestCheckCharacter {
+
+  static final int SAMPLES = 2000;
+
+  static ILongEncoder longDefault;
+  static ILongEncoder longBig;
+  static ILongEncoder longPadded;
+  static IBigIntegerEncoder bigDefault;
+  static IBigIntegerEncoder bigBig;
+
+  @BeforeAll
+  static void init () {
+    longDefault = ILongEncoder.build(getEncodedIdBuilder().checkedEncoder(true));
+    longBig = ILongEncoder.build(getTightlyEncodedIdBuilder().checkedEncoder(true));
+    longPadded = ILongEncoder.build(getEncodedIdBuilder()
+                  .checkedEncoder(true)
+                  .padWidth(12)
+                  .separator(true)
+                  .segmentLength(3));
+    bigDefault = IBigIntegerEncoder.build(getEncodedIdBuilder().checkedEncoder(true).padWidth(9));
+    bigBig = IBigIntegerEncoder.build(getTightlyEncodedIdBuilder().checkedEncoder(true));
+  }
+
+  @Test
+  public void longEquivalenceTests () {
+    Random random = new Random(20231004L);
+
+    for (int i = 0; i < SAMPLES; i++) {
+      long id = (i < 3) ? i - 1 : random.nextLong() >> random.nextInt(64);
+
+      assertMatchesReference(longDefault.encodeIdWithoutSeparator(id), DEFAULT_ALPHABET);
+      assertMatchesReference(longBig.encodeIdWithoutSeparator(id), BIG_ALPHABET);
+      assertMatchesReference(longPadded.encodeIdWithoutSeparator(id), DEFAULT_ALPHABET);
+      assertEquals(id, longPadded.decodeId(longPadded.encodeId(id)));
+    }
+  }
+
+  @Test
+  public void bigIntegerEquivalenceTests () {
+    Random random = new Random(20231005L);
+
+    for (int i = 0; i < SAMPLES; i++) {
+      BigInteger id = new BigInteger(1 + random.nextInt(300), random);
+
+      if (random.nextBoolean()) {
+        id = id.negate();
+      }
+      assertMatchesReference(bigDefault.encodeIdWithoutSeparator(id), DEFAULT_ALPHABET);
+      assertMatchesReference(bigBig.encodeIdWithoutSeparator(id), BIG_ALPHABET);
+    }
+  }
+
+  @Test
+  public void invalidCheckCharacterTests () {
+    Random random = new Random(20231006L);
+
+    for (int i = 0; i < 200; i++) {
+      long id = random.nextLong();
+      String s = longDefault.encodeId(id);
+      String body = s.substring(0, s.length() - 1);
+
+      // Exactly one check character is accepted.
+
+      for (char c : DEFAULT_ALPHABET.toCharArray()) {
+        if (c == s.charAt(s.length() - 1)) {
+          assertEquals(id, longDefault.decodeId(body + c));
+        } else {
+          assertThrows(EncodedIdException.class, () -> longDefault.decodeId(body + c));
+        }
+      }
+    }
+  }
+
+  private static void assertMatchesReference (String encoded, String alphabet) {
+    String body = encoded.startsWith("" + NEGATIVE_SIGN) ? encoded.substring(1) : encoded;
+
+    assertEquals(referenceCheckCharacter(body.substring(0, body.length() - 1), alphabet),
+                  body.charAt(body.length() - 1), encoded);
+  }
+
+  private static char referenceCheckCharacter (String input, String alphabet) {
+    int factor = 2;
+    int sum = 0;
+    int n = alphabet.length();
+
+    for (int i = input.length() - 1; i >= 0; i--) {
+      int addend = factor * alphabet.indexOf(input.charAt(i));
+
+      factor = (factor == 2) ? 1 : 2;
+      addend = (addend / n) + (addend % n);
+      sum += addend;
+    }
+
+    int remainder = sum % n;
+    return alphabet.charAt((n - remainder) % n);
+  }
+}
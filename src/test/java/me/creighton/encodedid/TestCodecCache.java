@@ -0,0 +1,103 @@
+package me.creighton.encodedid;
+
+import me.creighton.encodedid.impl.LongCodec;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static me.creighton.encodedid.EncodingConstants.*;
+import static me.creighton.encodedid.IEncodedId.getEncodedIdBuilder;
+import static me.creighton.encodedid.Utilities.scramble;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestCodecCache {
+
+  @Test
+  public void hitAndMissTests () {
+    ICodecCache cache = ICodecCache.build(10);
+    ILongEncoder first = cache.longEncoder(getEncodedIdBuilder().checkedEncoder(true));
+    ILongEncoder second = cache.longEncoder(getEncodedIdBuilder().checkedEncoder(true));
+    ILongEncoder unchecked = cache.longEncoder(getEncodedIdBuilder());
+
+    assertSame(first, second);
+    assertNotSame(first, unchecked);
+    assertEquals(1, cache.hits());
+    assertEquals(2, cache.misses());
+    assertEquals(2, cache.size());
+
+    // The same settings build a different kind of encoder.
+
+    IUuidEncoder uuid = cache.uuidEncoder(getEncodedIdBuilder().checkedEncoder(true));
+    UUID d = UUID.randomUUID();
+
+    assertEquals(d, uuid.decodeId(uuid.encodeId(d)));
+    assertEquals(3, cache.misses());
+
+    // Cached encoders are compiled, so one tenant can't change another's.
+
+    assertThrows(UnsupportedOperationException.class, () -> first.checkedEncoder(false));
+    assertEquals(ILongEncoder.build(getEncodedIdBuilder().checkedEncoder(true)).encodeId(42), first.encodeId(42));
+  }
+
+  @Test
+  public void evictionTests () {
+    ICodecCache cache = ICodecCache.build(3);
+    String [] tenants = new String[5];
+
+    for (int i = 0; i < tenants.length; i++) {
+      tenants[i] = scramble(DEFAULT_ALPHABET);
+      cache.longEncoder(getEncodedIdBuilder(tenants[i], BASE_DEFAULT_CHARACTER_SET));
+    }
+    assertEquals(3, cache.size());
+    assertEquals(2, cache.evictions());
+
+    // Tenant 2 was least recently used until now; touching it makes tenant 3 the eldest.
+
+    cache.longEncoder(getEncodedIdBuilder(tenants[2], BASE_DEFAULT_CHARACTER_SET));
+    assertEquals(1, cache.hits());
+    cache.longEncoder(getEncodedIdBuilder(tenants[0], BASE_DEFAULT_CHARACTER_SET));
+    assertEquals(3, cache.evictions());
+    cache.longEncoder(getEncodedIdBuilder(tenants[2], BASE_DEFAULT_CHARACTER_SET));
+    assertEquals(2, cache.hits());
+    cache.longEncoder(getEncodedIdBuilder(tenants[3], BASE_DEFAULT_CHARACTER_SET));
+    assertEquals(2, cache.hits());
+    assertEquals(3, cache.size());
+
+    assertThrows(IllegalArgumentException.class, () -> ICodecCache.build(0));
+  }
+
+  @Test
+  public void sharedAlphabetTests () {
+    ICodecCache cache = ICodecCache.build(10);
+    String alphabet = scramble(DEFAULT_ALPHABET);
+
+    LongCodec first = (LongCodec) cache.longEncoder(getEncodedIdBuilder(alphabet, BASE_DEFAULT_CHARACTER_SET));
+
+    // Same alphabet, different settings: separate encoders over one set of tables.
+
+    for (int pad = 1; pad < 8; pad++) {
+      IEncodedId.Builder builder = getEncodedIdBuilder(alphabet, BASE_DEFAULT_CHARACTER_SET).padWidth(pad);
+      ILongEncoder cached = cache.longEncoder(builder);
+
+      assertNotSame(first, cached);
+      assertTrue(first.sharesTablesWith(cached), "pad " + pad);
+      assertEquals(ILongEncoder.build(builder).encodeId(-12345), cached.encodeId(-12345));
+      assertEquals(-12345, cached.decodeId(cached.encodeId(-12345)));
+    }
+    assertEquals(8, cache.size());
+    assertTrue(first.sharesTablesWith(cache.uuidEncoder(getEncodedIdBuilder(alphabet, BASE_DEFAULT_CHARACTER_SET))));
+
+    // Other alphabets, and codecs compiled outside the cache, have tables of their own.
+
+    assertFalse(first.sharesTablesWith(cache.longEncoder(getEncodedIdBuilder())));
+    assertFalse(first.sharesTablesWith(getEncodedIdBuilder(alphabet, BASE_DEFAULT_CHARACTER_SET).compileLongEncoder()));
+
+    // Once every encoder with the alphabet is evicted, its tables go too.
+
+    ICodecCache small = ICodecCache.build(1);
+    LongCodec before = (LongCodec) small.longEncoder(getEncodedIdBuilder(alphabet, BASE_DEFAULT_CHARACTER_SET));
+
+    small.longEncoder(getEncodedIdBuilder());
+    assertFalse(before.sharesTablesWith(small.longEncoder(getEncodedIdBuilder(alphabet, BASE_DEFAULT_CHARACTER_SET))));
+  }
+}
@@ -0,0 +1,231 @@
+package me.creighton.encodedid;
+
+import me.creighton.encodedid.impl.LongCodec;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static me.creighton.encodedid.EncodingConstants.*;
+import static me.creighton.encodedid.IEncodedId.getEncodedIdBuilder;
+import static me.creighton.encodedid.IEncodedId.getTightlyEncodedIdBuilder;
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+  Compiled codecs are shared between threads. The concurrency tests are in the style of
+  jcstress: several actors run the same small operation over and over against shared state,
+  and every outcome they observe must be one of the acceptable ones.
+ */
+public class TestCompiledCodec {
+
+  static final int THREADS = 4;
+  static final int ITERATIONS = 20000;
+
+  static ILongEncoder longCodec;
+  static IUuidEncoder uuidCodec;
+
+  static ILongEncoder racyCodec;  // deliberately neither volatile nor guarded
+
+  static IEncodedId.Builder builder () {
+    return getEncodedIdBuilder()
+              .checkedEncoder(true)
+              .separator(true)
+              .segmentLength(3)
+              .padWidth(9);
+  }
+
+  @BeforeAll
+  static void init () {
+    longCodec = builder().compileLongEncoder();
+    uuidCodec = builder().fixedWidth(true).compileUuidEncoder();
+  }
+
+  @Test
+  public void immutabilityTests () {
+    ILongEncoder encoder = ILongEncoder.build(builder());
+
+    assertEquals(encoder.encodeId(42), longCodec.encodeId(42));
+    assertEquals(encoder.alphabet(), longCodec.alphabet());
+    assertTrue(longCodec.checkedEncoder());
+    assertTrue(uuidCodec.fixedWidth());
+
+    assertThrows(UnsupportedOperationException.class, () -> longCodec.checkedEncoder(false));
+    assertThrows(UnsupportedOperationException.class, () -> longCodec.padWidth(0));
+    assertThrows(UnsupportedOperationException.class, () -> longCodec.separator('_'));
+    assertThrows(UnsupportedOperationException.class, () -> longCodec.useSeparator(false));
+    assertThrows(UnsupportedOperationException.class, () -> longCodec.setMinId(0));
+    assertThrows(UnsupportedOperationException.class, () -> uuidCodec.fixedWidth(false));
+    assertThrows(UnsupportedOperationException.class,
+        () -> uuidCodec.alphabet(EncodingConstants.BIG_ALPHABET, EncodingConstants.BASE_BIG_CHARACTER_SET));
+
+    // Nothing changed.
+
+    assertEquals(encoder.encodeId(42), longCodec.encodeId(42));
+
+    // A codec takes a copy of the builder's values, so changing the builder afterwards doesn't reach it.
+
+    IEncodedId.Builder b = builder().twoDigitTables(true).unsigned(true);
+    ILongEncoder codec = b.compileLongEncoder();
+    String before = codec.encodeId(-42);
+
+    b.padWidth(0).separator(false).checkedEncoder(false).twoDigitTables(false).unsigned(false);
+    assertEquals(before, codec.encodeId(-42));
+    assertEquals(9, codec.padWidth());
+    assertTrue(codec.useSeparator() && codec.checkedEncoder() && codec.twoDigitTables() && codec.unsigned());
+
+    // An encoder's setters swap in new settings; values it was built with stay put.
+
+    encoder.padWidth(0);
+    encoder.alphabet(URL_SAFE_32_ALPHABET, URL_SAFE_32_CHARACTER_SET);
+    assertEquals(0, encoder.padWidth());
+    assertEquals(URL_SAFE_32_CHARACTER_SET, encoder.characterSet());
+    assertTrue(encoder.checkedEncoder() && encoder.useSeparator());
+    assertEquals(3, encoder.segmentLength());
+    assertEquals(-42, encoder.decodeId(encoder.encodeId(-42)));
+  }
+
+  @Test
+  public void sharedCodecTests () throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> actors = new ArrayList<>();
+
+    try {
+      for (int t = 0; t < THREADS; t++) {
+        long seed = t;
+
+        actors.add(pool.submit(() -> {
+          // Each actor checks the shared codecs against an encoder of its own.
+          ILongEncoder own = ILongEncoder.build(builder());
+          IUuidEncoder ownUuid = IUuidEncoder.build(builder().fixedWidth(true));
+          Random random = new Random(seed);
+
+          start.await();
+          for (int i = 0; i < ITERATIONS; i++) {
+            long id = random.nextLong() >> random.nextInt(64);
+            UUID uuid = new UUID(random.nextLong(), random.nextLong());
+            String s = longCodec.encodeId(id);
+            String u = uuidCodec.encodeId(uuid);
+
+            assertEquals(own.encodeId(id), s);
+            assertEquals(id, longCodec.decodeId(s));
+            assertEquals(ownUuid.encodeId(uuid), u);
+            assertEquals(uuid, uuidCodec.decodeId(u));
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<?> actor : actors) {
+        actor.get(1, TimeUnit.MINUTES);  // rethrows an actor's assertion failure
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void racyPublicationTests () throws Exception {
+    String expected = longCodec.encodeId(-123456789L);
+    ExecutorService pool = Executors.newFixedThreadPool(2);
+
+    try {
+      // Actor 1 keeps building codecs and publishing them through a plain field.
+      Future<?> writer = pool.submit(() -> {
+        for (int i = 0; i < ITERATIONS; i++) {
+          racyCodec = builder().compileLongEncoder();
+        }
+        return null;
+      });
+
+      // Actor 2 uses whatever codec it sees. It may see none, but never a partly built one.
+      Future<?> reader = pool.submit(() -> {
+        while (! writer.isDone()) {
+          ILongEncoder codec = racyCodec;
+
+          if (null != codec) {
+            assertEquals(expected, codec.encodeId(-123456789L));
+          }
+        }
+        return null;
+      });
+
+      writer.get(1, TimeUnit.MINUTES);
+      reader.get(1, TimeUnit.MINUTES);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void specializedTests () {
+    IEncodedId.Builder [] builders = EncoderFixtures.builders(
+        builder(),
+        getEncodedIdBuilder(URL_SAFE_32_ALPHABET, URL_SAFE_32_CHARACTER_SET).separator(true).strictSeparators(true),
+        getEncodedIdBuilder(NUMBERS).padWidth(30).separator(true).segmentLength(8).checkedEncoder(true),
+        getEncodedIdBuilder().checkedEncoder(true).twoDigitTables(true).separator(true).segmentLength(4),
+        getEncodedIdBuilder(NUMBERS).separator(true).formatTemplate("XXX-XXX-XXXX").checkedEncoder(true),
+        getEncodedIdBuilder().tolerantDecoding(true).unsigned(true).separator(true)
+    );
+    Random random = new Random(20231011L);
+
+    for (IEncodedId.Builder b : builders) {
+      ILongEncoder generic = ILongEncoder.build(b);
+      ILongEncoder specialized = b.specialized(true).compileLongEncoder();
+      long [] ids = new long[2000];
+      String [] encoded = new String[ids.length];
+
+      assertTrue(((LongCodec) specialized).isSpecialized());
+      for (int i = 0; i < ids.length; i++) {
+        ids[i] = (i < 3) ? Long.MIN_VALUE + i * Long.MAX_VALUE : random.nextLong() >> random.nextInt(64);
+        encoded[i] = specialized.encodeId(ids[i]);
+
+        assertEquals(generic.encodeId(ids[i]), encoded[i]);
+        assertEquals(generic.encodeIdWithoutSeparator(ids[i]), specialized.encodeIdWithoutSeparator(ids[i]));
+        assertEquals(ids[i], specialized.decodeId(encoded[i]));
+      }
+
+      // Mangled encodings fail the same way.
+
+      for (int i = 0; i < ids.length; i++) {
+        encoded[i] = EncoderFixtures.replaceOne(encoded[i], random);
+      }
+      long [] expected = new long[ids.length];
+      long [] actual = new long[ids.length];
+      BitSet invalid = generic.decodeAll(encoded, expected);
+
+      assertEquals(invalid, specialized.decodeAll(encoded, actual));
+      assertArrayEquals(expected, actual);
+      assertFalse(invalid.isEmpty());
+    }
+  }
+
+  // A failure to generate the specialized class falls back to the generic encoder quietly, so
+  // make sure it doesn't happen for any of the alphabets this library ships.
+  @Test
+  public void defaultAlphabetsSpecializeTests () {
+    IEncodedId.Builder [] builders = {
+        getEncodedIdBuilder(),
+        getTightlyEncodedIdBuilder(),
+        getEncodedIdBuilder(NUMBERS),
+        getEncodedIdBuilder(URL_SAFE_32_ALPHABET, URL_SAFE_32_CHARACTER_SET),
+        getEncodedIdBuilder(URL_SAFE_64_ALPHABET, URL_SAFE_64_CHARACTER_SET)
+    };
+
+    for (IEncodedId.Builder b : builders) {
+      LongCodec codec = (LongCodec) b.specialized(true).compileLongEncoder();
+
+      assertTrue(codec.isSpecialized(), b.getAlphabet());
+      assertEquals(12345L, codec.decodeId(codec.encodeId(12345L)));
+    }
+  }
+}
@@ -0,0 +1,203 @@
+package me.creighton.encodedid;
+
+import me.creighton.encodedid.impl.BatchValidator;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static me.creighton.encodedid.EncodingConstants.*;
+import static me.creighton.encodedid.IEncodedId.getEncodedIdBuilder;
+import static me.creighton.encodedid.IEncodedId.getTightlyEncodedIdBuilder;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestFormatTemplate {
+
+  static final String [] TEMPLATES = {"XXX-XXXX", "XXXX/XXXX/XX", "X XX", "XXXXX", "XX#XXX-XXXX"};
+
+  @Test
+  public void layoutTests () {
+    ILongEncoder phone = ILongEncoder.build(getEncodedIdBuilder(NUMBERS).separator(true).formatTemplate("XXX-XXXX"));
+
+    assertEquals("XXX-XXXX", phone.formatTemplate());
+    assertEquals("555-1234", phone.encodeId(5551234));
+    assertEquals("5-1234", phone.encodeId(51234));
+    assertEquals("1234", phone.encodeId(1234));
+    assertEquals("~1-2345", phone.encodeId(-12345));              // the sign takes a place too
+    assertEquals("212-555-1234", phone.encodeId(2125551234L));     // the left-most group repeats
+    assertEquals("2125551234", phone.encodeIdWithoutSeparator(2125551234L));
+
+    ILongEncoder dotted = ILongEncoder.build(getEncodedIdBuilder(NUMBERS).separator(true).padWidth(10)
+                                                 .formatTemplate("XXXX.XXXX.XX"));
+    assertEquals("0000.0012.34", dotted.encodeId(1234));
+    assertEquals("1.2345.6789.01", dotted.encodeId(12345678901L));
+
+    dotted.useSeparator(false);
+    assertEquals("0000001234", dotted.encodeId(1234));
+  }
+
+  @Test
+  public void encoderTests () {
+    IEncodedId.Builder [] builders = {
+        getEncodedIdBuilder(),
+        getEncodedIdBuilder().checkedEncoder(true).padWidth(9),
+        getTightlyEncodedIdBuilder().checkedEncoder(true).twoDigitTables(true),
+        getEncodedIdBuilder(URL_SAFE_32_ALPHABET, URL_SAFE_32_CHARACTER_SET).specialized(true)
+    };
+    Random random = new Random(20231027L);
+    byte [] buffer = new byte[256];
+
+    for (IEncodedId.Builder b : builders) {
+      for (String template : TEMPLATES) {
+        b.separator(true).formatTemplate(template);
+        ILongEncoder [] encoders = { ILongEncoder.build(b), b.compileLongEncoder() };
+        IIntEncoder intEncoder = IIntEncoder.build(b);
+        IBigIntegerEncoder big = IBigIntegerEncoder.build(b);
+        IUuidEncoder uuid = IUuidEncoder.build(b);
+        b.formatTemplate(null).separator(false);
+        ILongEncoder plain = ILongEncoder.build(b);
+
+        for (int i = 0; i < 2000; i++) {
+          long id = (i < 3) ? new long[] {0, Long.MIN_VALUE, Long.MAX_VALUE}[i] : random.nextLong() >> random.nextInt(64);
+          String expected = layOut(plain.encodeId(id), template);
+
+          for (ILongEncoder encoder : encoders) {
+            String s = encoder.encodeId(id);
+            int length = encoder.encodeTo(id, buffer, 0);
+
+            assertEquals(expected, s);
+            assertEquals(s, new String(buffer, 0, length, StandardCharsets.ISO_8859_1));
+            assertTrue(s.length() <= encoder.maxEncodedLength());
+            assertEquals(plain.encodeId(id), encoder.encodeIdWithoutSeparator(id));
+            assertEquals(id, encoder.decodeId(s));
+          }
+          assertEquals(expected, big.encodeId(BigInteger.valueOf(id)));
+          assertEquals(BigInteger.valueOf(id), big.decodeId(expected));
+          if ((int) id == id) {
+            assertEquals(expected, intEncoder.encodeId((int) id));
+            assertEquals(id, intEncoder.decodeId(expected));
+          }
+        }
+
+        UUID u = new UUID(random.nextLong(), random.nextLong());
+        String s = uuid.encodeId(u);
+
+        assertEquals(layOut(uuid.encodeIdWithoutSeparator(u), template), s);
+        assertEquals(u, uuid.decodeId(s));
+      }
+    }
+  }
+
+  @Test
+  public void decodeTests () {
+    IEncodedId.Builder b = getEncodedIdBuilder().checkedEncoder(true).separator(true).formatTemplate("XX:XXX-XXXX");
+    ILongEncoder encoder = ILongEncoder.build(b);
+    IIntEncoder intEncoder = IIntEncoder.build(b);
+    IBatchValidator validator = IBatchValidator.build(b.vectorValidation(true));
+    IBatchValidator scalar = new BatchValidator(b);
+    IBigIntegerEncoder big = IBigIntegerEncoder.build(b);
+    Random random = new Random(20231028L);
+    String [] ids = new String[3000];
+    long [] out = new long[1];
+    int [] intOut = new int[1];
+    BitSet expected = new BitSet();
+
+    // Separators are accepted exactly where the template puts them, whatever strictSeparators
+    // says, so a separator dropped, added or moved never decodes.
+
+    for (int i = 0; i < ids.length; i++) {
+      String s = encoder.encodeId(random.nextInt() >> random.nextInt(32));
+      int at = random.nextInt(s.length());
+      String c = String.valueOf(":-_".charAt(random.nextInt(3)));
+
+      ids[i] = switch (i % 4) {
+        case 0 -> s;
+        case 1 -> s.substring(0, at) + c + s.substring(at);
+        case 2 -> s.substring(0, at) + s.substring(at + 1);
+        default -> s.substring(0, at) + c + s.substring(at + 1);
+      };
+
+      String id = ids[i];
+      int status = encoder.tryDecodeId(id, 0, id.length(), out, 0);
+
+      if (i % 4 == 0) {
+        assertEquals(IEncodedId.DECODED, status, id);
+      }
+      if (status == IEncodedId.DECODED) {
+        assertEquals(id, encoder.encodeId(out[0]));  // what decodes is laid out exactly as encoded
+      }
+      if (id.length() <= intEncoder.maxEncodedLength()) {
+        assertEquals(status, intEncoder.tryDecodeId(id, 0, id.length(), intOut, 0), id);
+      }
+      if (status != IEncodedId.DECODED) {
+        expected.set(i);
+        assertThrows(EncodedIdException.class, () -> big.decodeId(id));
+      }
+    }
+    assertEquals(expected, validator.validateAll(ids));
+    assertEquals(expected, scalar.validateAll(ids));
+
+    String s = encoder.encodeId(123456789);
+
+    assertEquals(IEncodedId.MISPLACED_SEPARATOR, encoder.tryDecodeId(":" + s, 0, s.length() + 1, out, 0));
+    assertEquals(IEncodedId.MISPLACED_SEPARATOR, encoder.tryDecodeId(s + "-", 0, s.length() + 1, out, 0));
+
+    String unseparated = encoder.encodeIdWithoutSeparator(123456789);
+    assertEquals(IEncodedId.MISPLACED_SEPARATOR, encoder.tryDecodeId(unseparated, 0, unseparated.length(), out, 0));
+  }
+
+  @Test
+  public void invalidTemplateTests () {
+    for (String template : new String[] {"", "-XXX", "XXX-", "XX--XX", "XX" + DEFAULT_ALPHABET.charAt(1) + "XX", "XX~XX", "XXĀXX"}) {
+      IEncodedId.Builder b = getEncodedIdBuilder().formatTemplate(template);
+
+      assertThrows(EncodedIdException.class, () -> ILongEncoder.build(b), template);
+    }
+
+    ILongEncoder encoder = ILongEncoder.build(getEncodedIdBuilder().formatTemplate("XXX.XXX"));
+
+    assertThrows(EncodedIdException.class, () -> encoder.alphabet("abc.", "abc."));
+    assertThrows(UnsupportedOperationException.class,
+        () -> getEncodedIdBuilder().compileLongEncoder().formatTemplate("XXX-XXX"));
+  }
+
+  // Groups from the right, the way the template reads, with the left-most group repeated.
+  private static String layOut (String s, String template) {
+    List<Integer> sizes = new ArrayList<>();
+    List<Character> separators = new ArrayList<>();
+    int run = 0;
+
+    for (char c : template.toCharArray()) {
+      if (c == 'X') {
+        run++;
+      } else {
+        sizes.add(run);
+        separators.add(c);
+        run = 0;
+      }
+    }
+    sizes.add(run);
+
+    StringBuilder sb = new StringBuilder();
+    int g = sizes.size() - 1;
+    int left = sizes.get(g);
+
+    for (int i = s.length() - 1; i >= 0; i--) {
+      if (left == 0 && separators.isEmpty()) {
+        left = Integer.MAX_VALUE;
+      } else if (left == 0) {
+        g = Math.max(g - 1, 0);
+        sb.append(separators.get(g));
+        left = sizes.get(g);
+      }
+      sb.append(s.charAt(i));
+      left--;
+    }
+    return sb.reverse().toString();
+  }
+}
@@ -0,0 +1,102 @@
+package me.creighton.encodedid;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static me.creighton.encodedid.IEncodedId.getEncodedIdBuilder;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestIntEncoder {
+
+  static final IEncodedId.Builder [] BUILDERS = EncoderFixtures.builders(
+      getEncodedIdBuilder().checkedEncoder(true).separator(true).segmentLength(3).padWidth(7),
+      getEncodedIdBuilder().checkedEncoder(true).twoDigitTables(true),
+      getEncodedIdBuilder().separator(true).formatTemplate("XXX-XXXX")
+  );
+
+  @Test
+  public void sameAsLongTests () {
+    Random random = new Random(20231024L);
+
+    for (IEncodedId.Builder b : BUILDERS) {
+      IIntEncoder encoder = IIntEncoder.build(b);
+      ILongEncoder longEncoder = ILongEncoder.build(b);
+      byte [] buffer = new byte[encoder.maxEncodedLength()];
+      ByteBuffer [] buffers = {ByteBuffer.allocate(buffer.length + 1), ByteBuffer.allocateDirect(buffer.length + 1)};
+
+      assertTrue(encoder.maxEncodedLength() <= longEncoder.maxEncodedLength());
+
+      for (int i = 0; i < 5000; i++) {
+        int id = (i < 5) ? new int[] {0, 1, -1, Integer.MIN_VALUE, Integer.MAX_VALUE}[i]
+                         : random.nextInt() >> random.nextInt(32);
+        String s = encoder.encodeId(id);
+        int length = encoder.encodeTo(id, buffer, 0);
+
+        assertEquals(longEncoder.encodeId(id), s);
+        assertEquals(longEncoder.encodeIdWithoutSeparator(id), encoder.encodeIdWithoutSeparator(id));
+        assertTrue(s.length() <= encoder.maxEncodedLength());
+        assertEquals(s, new String(buffer, 0, length, StandardCharsets.ISO_8859_1));
+        assertEquals(id, encoder.decodeId(s));
+        assertEquals(id, encoder.tryDecodeId(s).getAsInt());
+
+        for (ByteBuffer byteBuffer : buffers) {
+          byteBuffer.clear().put((byte) '[');
+          assertEquals(s.length(), encoder.encodeTo(id, byteBuffer));
+          byteBuffer.flip();
+          assertEquals('[', byteBuffer.get());
+          assertEquals(id, encoder.decodeId(byteBuffer));
+          assertFalse(byteBuffer.hasRemaining());
+        }
+      }
+      assertThrows(BufferOverflowException.class, () -> encoder.encodeTo(Integer.MIN_VALUE, ByteBuffer.allocate(2)));
+    }
+  }
+
+  @Test
+  public void decodeTests () {
+    Random random = new Random(20231025L);
+    int [] out = new int[1];
+    long [] longOut = new long[1];
+
+    for (IEncodedId.Builder b : BUILDERS) {
+      IIntEncoder encoder = IIntEncoder.build(b);
+      ILongEncoder longEncoder = ILongEncoder.build(b);
+
+      // Mangled long encodings: the int decoder agrees with the long one, except that values
+      // that don't fit in an int are out of range, and so is anything longer than an int needs.
+
+      for (int i = 0; i < 5000; i++) {
+        long id = (i < 4) ? new long[] {Integer.MIN_VALUE - 1L, Integer.MAX_VALUE + 1L, Long.MIN_VALUE, Long.MAX_VALUE}[i]
+                          : random.nextLong() >> (24 + random.nextInt(40));
+        String s = longEncoder.encodeId(id);
+
+        if (i % 2 == 1) {
+          s = EncoderFixtures.replaceOne(s, random);
+        }
+
+        int expected = longEncoder.tryDecodeId(s, 0, s.length(), longOut, 0);
+        int status = encoder.tryDecodeId(s, 0, s.length(), out, 0);
+
+        if (s.length() > encoder.maxEncodedLength() && status == IEncodedId.OUT_OF_RANGE) {
+          continue;
+        }
+        if (expected == IEncodedId.DECODED && (int) longOut[0] != longOut[0]) {
+          assertEquals(IEncodedId.OUT_OF_RANGE, status, s);
+        } else if (expected == IEncodedId.DECODED) {
+          assertEquals(IEncodedId.DECODED, status, s);
+          assertEquals(longOut[0], out[0], s);
+        } else {
+          assertEquals(expected, status, s);
+        }
+      }
+
+      assertThrows(EncodedIdException.class, () -> encoder.decodeId(longEncoder.encodeId(Integer.MAX_VALUE + 1L)));
+      assertThrows(EncodedIdException.class, () -> encoder.decodeId((String) null));
+      assertTrue(encoder.tryDecodeId("~".repeat(100)).isEmpty());
+    }
+  }
+}
@@ -2,14 +2,22 @@ package me.creighton.encodedid;
 
 import org.junit.jupiter.api.*;
 
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Random;
 
 import static me.creighton.encodedid.EncodingConstants.*;
 import static me.creighton.encodedid.IEncodedId.getEncodedIdBuilder;
 import static me.creighton.encodedid.IEncodedId.getTightlyEncodedIdBuilder;
 import static me.creighton.encodedid.Utilities.unscramble;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 public class TestLongEncoder {
 
@@ -93,6 +101,18 @@ public class TestLongEncoder {
       assertNull(map.putIfAbsent(c, 1));  // If it's already there assertion fails.
     }
 
+    for (String alphabet : new String[] {URL_SAFE_32_ALPHABET, URL_SAFE_64_ALPHABET}) {
+      map.clear();
+      for(char c : alphabet.toCharArray()) {
+        assertNull(map.putIfAbsent(c, 1));  // If it's already there assertion fails.
+      }
+      assertEquals(-1, alphabet.indexOf(DEFAULT_SEPARATOR));
+      assertEquals(-1, alphabet.indexOf(NEGATIVE_SIGN));
+      assertTrue(Utilities.isValidUriAlphabet(alphabet));
+    }
+    assertEquals(unscramble(URL_SAFE_32_CHARACTER_SET), unscramble(URL_SAFE_32_ALPHABET));
+    assertEquals(unscramble(URL_SAFE_64_CHARACTER_SET), unscramble(URL_SAFE_64_ALPHABET));
+
     // Ensure that nobody is using a reserved character
 
     assertEquals(-1, BASE_DEFAULT_CHARACTER_SET.indexOf(DEFAULT_SEPARATOR));
@@ -337,6 +357,551 @@ public class TestLongEncoder {
 
 
   }
+  @Test
+  public void layoutTests () {
+    ILongEncoder encoder = ILongEncoder.build(
+                getEncodedIdBuilder()
+                .separator(true)
+                .segmentLength(3)
+                .padWidth(7)
+                .checkedEncoder(true));
+
+    // Padding, sign, check character and separators all land in the same places as always.
+
+    assertEquals("PPP-PPP-P", encoder.encodeId(0));
+    assertEquals("PPP-PDW-Z", encoder.encodeId(42));
+    assertEquals("~PP-PPD-WZ", encoder.encodeId(-42));
+    assertEquals("~PPPPDWZ", encoder.encodeIdWithoutSeparator(-42));
+    assertEquals("~PS-ZZN-XS", encoder.encodeId(-5000000));
+    assertEquals("KQF-HHR-WDY-WGP-C3", encoder.encodeId(Long.MAX_VALUE));
+    assertEquals(-42, encoder.decodeId("~PP-PPD-WZ"));
+    assertEquals(Long.MAX_VALUE, encoder.decodeId("KQF-HHR-WDY-WGP-C3"));
+
+    // The magnitude of Long.MIN_VALUE does not fit in a long, but it still encodes.
+
+    assertEquals("~KQFHHRWDYWGPV", encoder1.encodeId(Long.MIN_VALUE));
+    assertEquals(Long.MIN_VALUE, encoder1.decodeId(encoder1.encodeId(Long.MIN_VALUE)));
+    assertEquals(Long.MIN_VALUE, encoder5.decodeId(encoder5.encodeId(Long.MIN_VALUE)));
+  }
+
+  @Test
+  public void rangeDecodeTests () {
+    ILongEncoder separated = ILongEncoder.build(
+                getEncodedIdBuilder()
+                .separator(true)
+                .segmentLength(3)
+                .padWidth(7)
+                .checkedEncoder(true));
+    String path = "/items/~PP-PPD-WZ/detail";
+    StringBuilder line = new StringBuilder("id=KQFHHRWDYWGPC3;");
+
+    assertEquals(-42, separated.decodeId(path, 7, 17));
+    assertEquals(Long.MAX_VALUE, encoder2.decodeId(line, 3, 17));
+    assertEquals(Long.MAX_VALUE, encoder1.decodeId(line, 3, 16));
+    assertThrows(EncodedIdException.class, () -> encoder2.decodeId(line, 3, 16));  // check character left out
+    assertThrows(EncodedIdException.class, () -> separated.decodeId(path, 7, 8));  // sign only
+    assertThrows(IndexOutOfBoundsException.class, () -> encoder1.decodeId(line, 3, 40));
+  }
+
+  @Test
+  public void separatorTests () {
+    ILongEncoder lenient = ILongEncoder.build(
+                getEncodedIdBuilder()
+                .separator(true)
+                .segmentLength(3)
+                .checkedEncoder(true));
+    ILongEncoder strict = ILongEncoder.build(
+                getEncodedIdBuilder()
+                .separator(true)
+                .segmentLength(3)
+                .checkedEncoder(true)
+                .strictSeparators(true));
+    ILongEncoder dotted = ILongEncoder.build(
+                getEncodedIdBuilder()
+                .separator('.')
+                .separator(true));
+
+    for (long d : new long[] {0, 42, -42, 123456789L, -5000000L, Long.MAX_VALUE, Long.MIN_VALUE}) {
+      assertEquals(d, strict.decodeId(strict.encodeId(d)));
+      assertEquals(d, lenient.decodeId(lenient.encodeIdWithoutSeparator(d)));
+      assertEquals(d, dotted.decodeId(dotted.encodeId(d)));  // '.' is not a regular expression here
+    }
+
+    // Without strict separators they may go anywhere; with them only where encoding puts them.
+
+    assertEquals(-42, lenient.decodeId("-~P-DWZ--"));
+    assertEquals(-42, strict.decodeId("~PD-WZ"));
+    assertThrows(EncodedIdException.class, () -> strict.decodeId("~PDWZ"));
+    assertThrows(EncodedIdException.class, () -> strict.decodeId("~P-DWZ"));
+    assertThrows(EncodedIdException.class, () -> strict.decodeId("-~PD-WZ"));
+    assertThrows(EncodedIdException.class, () -> strict.decodeId("~PD--WZ"));
+    assertThrows(EncodedIdException.class, () -> strict.decodeId("~PD-WZ-"));
+    assertThrows(EncodedIdException.class, () -> strict.decodeId("KQF-HHRW-DYW-GPC-3"));
+    assertEquals(Long.MAX_VALUE, strict.decodeId("KQF-HHR-WDY-WGP-C3"));
+  }
+
+  @Test
+  public void powerOfTwoTests () {
+    String radix32 = "0123456789abcdefghijklmnopqrstuv";  // the digits Long.toString uses
+    ILongEncoder hex = ILongEncoder.build(getEncodedIdBuilder(radix32.substring(0, 16)));
+    ILongEncoder base32 = ILongEncoder.build(getEncodedIdBuilder(radix32));
+    ILongEncoder url32 = ILongEncoder.build(
+                getEncodedIdBuilder(URL_SAFE_32_ALPHABET, URL_SAFE_32_CHARACTER_SET)
+                .checkedEncoder(true));
+    ILongEncoder url64 = ILongEncoder.build(
+                getEncodedIdBuilder(URL_SAFE_64_ALPHABET, URL_SAFE_64_CHARACTER_SET)
+                .separator(true)
+                .padWidth(11));
+    Random random = new Random(64);
+
+    for (int i = 0; i < 1000; i++) {
+      long d = random.nextLong() >> random.nextInt(64);
+
+      assertEquals(Long.toString(d, 16).replace('-', NEGATIVE_SIGN), hex.encodeId(d));
+      assertEquals(Long.toString(d, 32).replace('-', NEGATIVE_SIGN), base32.encodeId(d));
+      assertEquals(d, base32.decodeId(base32.encodeId(d)));
+      assertEquals(d, url32.decodeId(url32.encodeId(d)));
+      assertEquals(d, url64.decodeId(url64.encodeId(d)));
+    }
+    assertEquals("~8000000000000000", hex.encodeId(Long.MIN_VALUE));
+    assertEquals(Long.MIN_VALUE, url64.decodeId(url64.encodeId(Long.MIN_VALUE)));
+    assertEquals(Long.MAX_VALUE, url64.decodeId(url64.encodeId(Long.MAX_VALUE)));
+    assertEquals(14, url32.encodeId(Long.MAX_VALUE).length());      // 13 digits and a check character
+    assertEquals(11 + 2, url64.encodeId(Long.MAX_VALUE).length());  // 11 digits and 2 separators
+  }
+
+  @Test
+  public void decodeCharacterTests () {
+
+    // Every single character of the alphabet decodes to its position.
+
+    for (int i = 0; i < DEFAULT_ALPHABET.length(); i++) {
+      assertEquals(i, encoder1.decodeId(DEFAULT_ALPHABET.substring(i, i + 1)));
+    }
+    for (int i = 0; i < BIG_ALPHABET.length(); i++) {
+      assertEquals(i, encoder3.decodeId(BIG_ALPHABET.substring(i, i + 1)));
+    }
+
+    // Characters not in the alphabet, both inside and beyond the range of the lookup table.
+
+    assertThrows(EncodedIdException.class, () -> encoder1.decodeId("PD0M"));
+    assertThrows(EncodedIdException.class, () -> encoder1.decodeId("PDaM"));
+    assertThrows(EncodedIdException.class, () -> encoder1.decodeId("PD\u00e9M"));
+    assertThrows(EncodedIdException.class, () -> encoder3.decodeId("TV\u20acb"));
+    assertThrows(EncodedIdException.class, () -> encoder2.decodeId("PD\u20acM"));
+  }
+
+  @Test
+  public void batchTests () {
+    Random random = new Random(20231010L);
+    long [] ids = new long[1000];
+    String [] encoded = new String[ids.length];
+    long [] decoded = new long[ids.length];
+
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = random.nextLong() >> random.nextInt(64);
+    }
+    ids[0] = Long.MIN_VALUE;
+
+    encoder2.encodeAll(ids, encoded);
+    for (int i = 0; i < ids.length; i++) {
+      assertEquals(encoder2.encodeId(ids[i]), encoded[i]);
+    }
+    assertTrue(encoder2.decodeAll(encoded, decoded).isEmpty());
+    assertArrayEquals(ids, decoded);
+
+    // Bad entries are reported, not thrown, and the rest still decode.
+
+    encoded[3] = null;
+    encoded[5] = "";
+    encoded[7] = encoded[7] + "0";
+    encoded[9] = encoded[9].substring(0, encoded[9].length() - 1);
+    BitSet invalid = encoder2.decodeAll(encoded, decoded);
+
+    assertEquals(BitSet.valueOf(new long[] {(1 << 3) | (1 << 5) | (1 << 7) | (1 << 9)}), invalid);
+    assertEquals(0, decoded[3]);
+    assertEquals(ids[8], decoded[8]);
+    assertThrows(IndexOutOfBoundsException.class, () -> encoder2.encodeAll(ids, new String[1]));
+  }
+
+  @Test
+  public void byteEncodingTests () {
+    ILongEncoder separated = ILongEncoder.build(getEncodedIdBuilder()
+                  .separator(true)
+                  .segmentLength(3)
+                  .checkedEncoder(true));
+    long [] ids = {0, 42, -42, Long.MAX_VALUE, Long.MIN_VALUE};
+    byte [] dst = new byte[2 + separated.maxEncodedLength()];
+
+    for (long id : ids) {
+      String s = separated.encodeId(id);
+      int length = separated.encodeTo(id, dst, 2);
+
+      assertEquals(s, new String(dst, 2, length, StandardCharsets.US_ASCII));
+
+      for (ByteBuffer buffer : new ByteBuffer[] {ByteBuffer.allocate(64), ByteBuffer.allocateDirect(64)}) {
+        buffer.put((byte) '[');
+        assertEquals(s.length(), separated.encodeTo(id, buffer));
+        buffer.put((byte) ']').flip();
+        assertEquals('[', buffer.get());
+        assertEquals(id, separated.decodeId(buffer.slice(1, s.length())));
+
+        buffer.limit(1 + s.length());
+        assertEquals(id, separated.decodeId(buffer));
+        assertEquals(buffer.limit(), buffer.position());
+      }
+      assertTrue(s.length() <= separated.maxEncodedLength());
+    }
+
+    assertThrows(IndexOutOfBoundsException.class, () -> separated.encodeTo(Long.MAX_VALUE, new byte[8], 0));
+    assertThrows(java.nio.BufferOverflowException.class, () -> separated.encodeTo(Long.MAX_VALUE, ByteBuffer.allocate(8)));
+    assertThrows(EncodedIdException.class,
+        () -> separated.decodeId(ByteBuffer.wrap("PP?".getBytes(StandardCharsets.US_ASCII))));
+  }
+
+  @Test
+  public void shortDecodeTests () {
+    ILongEncoder checked = ILongEncoder.build(getEncodedIdBuilder()
+                  .separator(true)
+                  .segmentLength(4)
+                  .checkedEncoder(true));
+    Random random = new Random(20231019L);
+
+    // Short inputs without separators take the SWAR path; with separators they don't.
+
+    for (int i = 0; i < 2000; i++) {
+      long id = random.nextLong() >> random.nextInt(64);
+      String plain = checked.encodeIdWithoutSeparator(id);
+
+      assertEquals(id, checked.decodeId(plain));
+      assertEquals(id, checked.decodeId(checked.encodeId(id)));
+
+      ByteBuffer direct = ByteBuffer.allocateDirect(plain.length());
+      direct.put(plain.getBytes(StandardCharsets.US_ASCII)).flip();
+      assertEquals(id, checked.decodeId(direct));
+    }
+
+    String valid = checked.encodeIdWithoutSeparator(123456789L);
+    for (String junk : new String[] {"~", "~~" + valid, valid.toLowerCase(), valid + "\u00e9", "\u4e00" + valid,
+                                     valid.substring(1), "a" + valid, valid.substring(0, 1), valid + " "}) {
+      assertThrows(EncodedIdException.class, () -> checked.decodeId(junk), junk);
+    }
+    assertEquals(-123456789L, checked.decodeId("~" + valid));
+  }
+
+  @Test
+  public void twoDigitTableTests () {
+    IEncodedId.Builder [] builders = EncoderFixtures.builders(
+        getEncodedIdBuilder().checkedEncoder(true).padWidth(7),
+        getEncodedIdBuilder(NUMBERS).separator(true).segmentLength(4).strictSeparators(true).checkedEncoder(true),
+        getEncodedIdBuilder(BIG_ALPHABET, BASE_BIG_CHARACTER_SET).separator(true).segmentLength(3)
+    );
+    Random random = new Random(20231018L);
+
+    for (IEncodedId.Builder b : builders) {
+      ILongEncoder generic = ILongEncoder.build(b.twoDigitTables(false));
+      ILongEncoder pairs = ILongEncoder.build(b.twoDigitTables(true));
+      String [] encoded = new String[3000];
+
+      assertTrue(pairs.twoDigitTables());
+      for (int i = 0; i < encoded.length; i++) {
+        long id = (i < 3) ? Long.MIN_VALUE + i * Long.MAX_VALUE : random.nextLong() >> random.nextInt(64);
+        encoded[i] = pairs.encodeId(id);
+
+        assertEquals(generic.encodeId(id), encoded[i]);
+        assertEquals(generic.encodeIdWithoutSeparator(id), pairs.encodeIdWithoutSeparator(id));
+        assertEquals(id, pairs.decodeId(encoded[i]));
+      }
+
+      // Replace, insert or drop a character: both decoders agree on what fails and what it decodes as.
+
+      for (int i = 0; i < encoded.length; i++) {
+        encoded[i] = EncoderFixtures.mangle(encoded[i], i % 3, random);
+      }
+      long [] expected = new long[encoded.length];
+      long [] actual = new long[encoded.length];
+      BitSet invalid = generic.decodeAll(encoded, expected);
+
+      assertEquals(invalid, pairs.decodeAll(encoded, actual));
+      assertArrayEquals(expected, actual);
+      assertFalse(invalid.isEmpty());
+    }
+  }
+
+  @Test
+  public void tryDecodeTests () {
+    IEncodedId.Builder strict = getEncodedIdBuilder()
+                  .separator(true)
+                  .segmentLength(4)
+                  .strictSeparators(true)
+                  .checkedEncoder(true);
+    ILongEncoder [] encoders = {
+        ILongEncoder.build(strict),
+        strict.specialized(true).compileLongEncoder(),
+        ILongEncoder.build(getEncodedIdBuilder().twoDigitTables(true))
+    };
+    Random random = new Random(20231021L);
+    long [] out = new long[2];
+
+    // tryDecodeId agrees with decodeId on every input, good or bad.
+
+    for (ILongEncoder encoder : encoders) {
+      for (int i = 0; i < 2000; i++) {
+        long id = random.nextLong() >> random.nextInt(64);
+        String s = encoder.encodeId(id);
+        String mangled = (i % 2 == 0) ? s : EncoderFixtures.replaceOne(s, random);
+        String padded = "/" + mangled + "/";
+        Long expected;
+
+        try {
+          expected = encoder.decodeId(mangled);
+        } catch (EncodedIdException e) {
+          expected = null;
+        }
+
+        out[1] = 42;
+        int status = encoder.tryDecodeId(padded, 1, padded.length() - 1, out, 1);
+        OptionalLong optional = encoder.tryDecodeId(mangled);
+
+        if (null == expected) {
+          assertNotEquals(IEncodedId.DECODED, status, mangled);
+          assertEquals(42, out[1]);
+          assertTrue(optional.isEmpty());
+        } else {
+          assertEquals(IEncodedId.DECODED, status, mangled);
+          assertEquals(expected, out[1]);
+          assertEquals(expected, optional.getAsLong());
+        }
+      }
+    }
+
+    // Each failure has its own status.
+
+    ILongEncoder encoder = encoders[0];
+    String valid = encoder.encodeId(123456789L);
+    String alphabet = encoder.alphabet();
+    char last = valid.charAt(valid.length() - 1);
+    String badCheck = valid.substring(0, valid.length() - 1) + alphabet.charAt((alphabet.indexOf(last) + 1) % alphabet.length());
+
+    assertEquals(IEncodedId.INVALID_CHARACTER, encoder.tryDecodeId("a" + valid, 0, valid.length() + 1, out, 0));
+    assertEquals(IEncodedId.MISPLACED_SEPARATOR, encoder.tryDecodeId("-" + valid, 0, valid.length() + 1, out, 0));
+    assertEquals(IEncodedId.NO_DIGITS, encoder.tryDecodeId("~", 0, 1, out, 0));
+    assertEquals(IEncodedId.INVALID_CHECK_CHARACTER, encoder.tryDecodeId(badCheck, 0, badCheck.length(), out, 0));
+    assertTrue(encoder.tryDecodeId(null).isEmpty());
+    assertThrows(IndexOutOfBoundsException.class, () -> encoder.tryDecodeId(valid, 0, valid.length(), out, 2));
+
+    // Stackless exceptions are preallocated, one per status, and say nothing about the input.
+
+    ILongEncoder stackless = ILongEncoder.build(strict.specialized(false).stacklessExceptions(true));
+    IBigIntegerEncoder stacklessBig = IBigIntegerEncoder.build(strict);
+    EncodedIdException first = assertThrows(EncodedIdException.class, () -> stackless.decodeId("a" + valid));
+    EncodedIdException second = assertThrows(EncodedIdException.class, () -> stackless.decodeId(valid + "a"));
+
+    assertTrue(stackless.stacklessExceptions());
+    assertSame(first, second);
+    assertSame(first, assertThrows(EncodedIdException.class, () -> stacklessBig.decodeId("a" + valid)));
+    assertEquals(0, first.getStackTrace().length);
+    assertFalse(first.getMessage().contains(valid));
+    assertNotSame(first, assertThrows(EncodedIdException.class, () -> stackless.decodeId(badCheck)));
+    assertNotSame(first, assertThrows(EncodedIdException.class, () -> stackless.decodeId((String) null)));
+    assertNotEquals(0, assertThrows(EncodedIdException.class,
+                  () -> encoder.decodeId("a" + valid)).getStackTrace().length);
+  }
+
+  @Test
+  public void tryDecodeAllocationTests () {
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    IEncodedId.Builder b = getEncodedIdBuilder().checkedEncoder(true);
+    ILongEncoder [] encoders = { ILongEncoder.build(b), b.specialized(true).compileLongEncoder() };
+    IIntEncoder intEncoder = IIntEncoder.build(b);
+    String valid = encoders[0].encodeId(123456789L);
+    String [] junk = { "~", valid + "~", "a" + valid, valid.substring(1), "~".repeat(100) };
+    long failures = 0;
+
+    assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+    // Failing, after warming up, allocates nothing: not a value array, not an exception, not an
+    // Optional. A little is allowed for the measuring itself.
+
+    for (int round = 0; round < 3; round++) {
+      long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+
+      for (int i = 0; i < 20000; i++) {
+        String s = junk[i % junk.length];
+
+        for (ILongEncoder encoder : encoders) {
+          failures += encoder.tryDecodeId(s).isEmpty() ? 1 : 0;
+        }
+        failures += intEncoder.tryDecodeId(s).isEmpty() ? 1 : 0;
+      }
+      long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+
+      if (round == 2) {
+        assertTrue(allocated < 1024, allocated + " bytes for 60000 failed decodes");
+      }
+    }
+    assertEquals(3 * 60000, failures);
+    assertEquals(123456789L, encoders[1].tryDecodeId(valid).getAsLong());
+    assertEquals(123456789, intEncoder.tryDecodeId(valid).getAsInt());
+  }
+
+  @Test
+  public void overflowTests () {
+    IEncodedId.Builder [] builders =
+        EncoderFixtures.builders(getEncodedIdBuilder(BIG_ALPHABET, BASE_BIG_CHARACTER_SET).twoDigitTables(true));
+    BigInteger min = BigInteger.valueOf(Long.MIN_VALUE);
+    BigInteger max = BigInteger.valueOf(Long.MAX_VALUE);
+    Random random = new Random(20231022L);
+    long [] out = new long[1];
+
+    for (IEncodedId.Builder b : builders) {
+      IBigIntegerEncoder big = IBigIntegerEncoder.build(b);
+      ILongEncoder [] encoders = { ILongEncoder.build(b), b.specialized(true).compileLongEncoder() };
+
+      for (ILongEncoder encoder : encoders) {
+        for (int i = 0; i < 3000; i++) {
+          BigInteger id = switch (i) {
+            case 0 -> max;
+            case 1 -> max.add(BigInteger.ONE);
+            case 2 -> min;
+            case 3 -> min.subtract(BigInteger.ONE);
+            case 4 -> BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+            case 5 -> BigInteger.ONE.shiftLeft(64);
+            default -> new BigInteger(60 + random.nextInt(8), random).add(BigInteger.valueOf(i % 7 - 3))
+                                                                     .multiply(BigInteger.valueOf(i % 2 * 2 - 1));
+          };
+          String s = big.encodeId(id);
+          int status = encoder.tryDecodeId(s, 0, s.length(), out, 0);
+
+          if (id.compareTo(min) >= 0 && id.compareTo(max) <= 0) {
+            assertEquals(IEncodedId.DECODED, status, s);
+            assertEquals(id.longValueExact(), out[0], s);
+          } else {
+            assertEquals(IEncodedId.OUT_OF_RANGE, status, s);
+          }
+        }
+
+        // Far too long is rejected before it is read: even junk is out of range, not invalid.
+
+        String hostile = "~".repeat(10_000);
+        assertEquals(IEncodedId.OUT_OF_RANGE, encoder.tryDecodeId(hostile, 0, hostile.length(), out, 0));
+        assertThrows(EncodedIdException.class, () -> encoder.decodeId(hostile));
+      }
+    }
+  }
+
+  @Test
+  public void unsignedTests () {
+    IEncodedId.Builder [] builders =
+        EncoderFixtures.builders(getEncodedIdBuilder(BIG_ALPHABET, BASE_BIG_CHARACTER_SET).twoDigitTables(true));
+    BigInteger limit = BigInteger.ONE.shiftLeft(64);
+    Random random = new Random(20231023L);
+    long [] out = new long[1];
+
+    for (IEncodedId.Builder b : builders) {
+      IBigIntegerEncoder big = IBigIntegerEncoder.build(b);
+      ILongEncoder signed = ILongEncoder.build(b);
+      b.unsigned(true);
+      ILongEncoder [] encoders = { ILongEncoder.build(b), b.specialized(true).compileLongEncoder() };
+      b.unsigned(false).specialized(false);
+
+      for (ILongEncoder encoder : encoders) {
+        assertTrue(encoder.unsigned());
+
+        for (int i = 0; i < 3000; i++) {
+          long id = (i < 4) ? new long[] {0, -1, Long.MIN_VALUE, Long.MAX_VALUE}[i] : random.nextLong() >> random.nextInt(64);
+          String s = encoder.encodeId(id);
+
+          assertEquals(big.encodeId(new BigInteger(Long.toUnsignedString(id))), s);
+          assertEquals(id, encoder.decodeId(s));
+          if (id >= 0) {
+            assertEquals(signed.encodeId(id), s);
+          }
+        }
+
+        // Just past the largest value, and the sign, are errors.
+
+        for (BigInteger id : new BigInteger[] {limit, limit.add(BigInteger.TEN), limit.shiftLeft(3)}) {
+          String s = big.encodeId(id);
+          assertEquals(IEncodedId.OUT_OF_RANGE, encoder.tryDecodeId(s, 0, s.length(), out, 0), s);
+        }
+        String negative = signed.encodeId(-5);
+        assertEquals(IEncodedId.INVALID_CHARACTER, encoder.tryDecodeId(negative, 0, negative.length(), out, 0));
+      }
+    }
+  }
+
+  @Test
+  public void rangeTableTests () {
+    IEncodedId.Builder [] builders = {
+        getEncodedIdBuilder().setMinId(0).setMaxId(5000),
+        getEncodedIdBuilder().checkedEncoder(true).separator(true).segmentLength(3).setMinId(-2500).setMaxId(2500),
+        getTightlyEncodedIdBuilder().padWidth(9).setMinId(Long.MIN_VALUE).setMaxId(Long.MIN_VALUE + 5000),
+        getEncodedIdBuilder(NUMBERS).unsigned(true).setMinId(-2500).setMaxId(2500),
+        getEncodedIdBuilder(BIG_ALPHABET, BASE_BIG_CHARACTER_SET).specialized(true).setMinId(111).setMaxId(999)
+    };
+    byte [] buffer = new byte[64];
+
+    for (IEncodedId.Builder b : builders) {
+      ILongEncoder plain = ILongEncoder.build(b);
+      b.rangeTableLimit(10000);
+      ILongEncoder [] encoders = { ILongEncoder.build(b), b.compileLongEncoder() };
+      b.rangeTableLimit(0);
+
+      for (ILongEncoder encoder : encoders) {
+        assertEquals(0, encoder.rangeTableBytes());
+
+        for (long id = b.getMinId() - 3; id != b.getMaxId() + 3; id++) {
+          String s = encoder.encodeId(id);
+          int length = encoder.encodeTo(id, buffer, 0);
+
+          assertEquals(plain.encodeId(id), s);
+          assertEquals(plain.encodeIdWithoutSeparator(id), encoder.encodeIdWithoutSeparator(id));
+          assertEquals(s, new String(buffer, 0, length, StandardCharsets.ISO_8859_1));
+          assertEquals(id, encoder.decodeId(s));
+        }
+        assertTrue(encoder.rangeTableBytes() > b.getMaxId() - b.getMinId());
+      }
+    }
+
+    // A setter drops the table and the next encode builds it again, and a range with as many
+    // ids as the limit gets no table at all.
+
+    ILongEncoder encoder = ILongEncoder.build(getEncodedIdBuilder().setMinId(0).setMaxId(99).rangeTableLimit(101));
+    String before = encoder.encodeId(42);
+    long bytes = encoder.rangeTableBytes();
+
+    encoder.checkedEncoder(true);
+    assertEquals(0, encoder.rangeTableBytes());
+    assertNotEquals(before, encoder.encodeId(42));
+    assertEquals(ILongEncoder.build(getEncodedIdBuilder().checkedEncoder(true)).encodeId(42), encoder.encodeId(42));
+    assertTrue(encoder.rangeTableBytes() > bytes);
+
+    encoder = ILongEncoder.build(getEncodedIdBuilder().setMinId(0).setMaxId(99).rangeTableLimit(100));
+    encoder.encodeId(42);
+    assertEquals(0, encoder.rangeTableBytes());
+
+    // Ranges too wide for an int count, or for a long difference, get no table either.
+
+    for (long[] range : new long[][] {{0, (1L << 32) + 5}, {Long.MIN_VALUE, Long.MAX_VALUE}, {-5, Long.MAX_VALUE}}) {
+      IEncodedId.Builder wide = getEncodedIdBuilder().setMinId(range[0]).setMaxId(range[1]).rangeTableLimit(Integer.MAX_VALUE);
+      ILongEncoder plain = ILongEncoder.build(getEncodedIdBuilder());
+      ILongEncoder tabled = ILongEncoder.build(wide);
+
+      for (long id : new long[] {0, 3, 100, 1L << 32}) {
+        assertEquals(plain.encodeId(id), tabled.encodeId(id));
+      }
+      assertEquals(0, tabled.rangeTableBytes());
+    }
+
+    // A negative limit is rejected, by the builder and by the setter.
+
+    assertThrows(EncodedIdException.class, () -> getEncodedIdBuilder().rangeTableLimit(-1));
+    ILongEncoder negative = ILongEncoder.build(getEncodedIdBuilder().setMinId(0).setMaxId((1L << 32) + 5));
+    assertThrows(EncodedIdException.class, () -> negative.rangeTableLimit(-1));
+    assertEquals(0, negative.rangeTableLimit());
+  }
+
   private void showMessage (String msg) {
     if (SHOW) {
       System.out.printf("%s\n", msg);
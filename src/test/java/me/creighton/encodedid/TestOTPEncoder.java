@@ -109,6 +109,26 @@ public class TestOTPEncoder {
 
   }
 
+  @Test
+  public void rangeTableTests () {
+    IOTPEncoder tabled = IOTPEncoder.getOTPBuilder()
+                            .withAlphabet(ALPHABET)
+                            .withLimits(LOW_LIMIT, HIGH_LIMIT_4_DIGITS)
+                            .withRangeTableLimit(100000)
+                            .build();
+
+    assertEquals(0, tabled.getRangeTableBytes());
+    for (long id = LOW_LIMIT; id <= HIGH_LIMIT_4_DIGITS; id++) {
+      String enc = tabled.encode(id);
+
+      assertEquals(encoder2.encode(id), enc);
+      assertEquals(id, tabled.decodeId(enc));
+    }
+    assertEquals(5 * (HIGH_LIMIT_4_DIGITS + 1), tabled.getRangeTableBytes());  // length byte and 4 characters
+    showMessage(String.format("Range table for %d OTPs: %d bytes", HIGH_LIMIT_4_DIGITS + 1, tabled.getRangeTableBytes()));
+    assertEquals(0, encoder2.getRangeTableBytes());
+  }
+
   private void showMessage (String msg) {
     if (SHOW) {
       System.out.printf("%s\n", msg);
@@ -0,0 +1,182 @@
+package me.creighton.encodedid;
+
+import me.creighton.encodedid.impl.BatchValidator;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.UUID;
+
+import static me.creighton.encodedid.EncodingConstants.*;
+import static me.creighton.encodedid.IEncodedId.getEncodedIdBuilder;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestTolerantDecoding {
+
+  @Test
+  public void typedIdTests () {
+    IEncodedId.Builder [] builders = {
+        getEncodedIdBuilder(),
+        getEncodedIdBuilder().checkedEncoder(true).padWidth(9),
+        getEncodedIdBuilder().checkedEncoder(true).specialized(true).twoDigitTables(true),
+        getEncodedIdBuilder().separator(true).separator('.'),
+        getEncodedIdBuilder(URL_SAFE_32_ALPHABET, URL_SAFE_32_CHARACTER_SET).checkedEncoder(true).unsigned(true)
+    };
+    Random random = new Random(20231101L);
+    long [] out = new long[1];
+
+    for (IEncodedId.Builder b : builders) {
+      ILongEncoder strict = ILongEncoder.build(b.tolerantDecoding(false));
+      ILongEncoder [] encoders = { ILongEncoder.build(b.tolerantDecoding(true)), b.compileLongEncoder() };
+      IIntEncoder intEncoder = IIntEncoder.build(b);
+      IBigIntegerEncoder big = IBigIntegerEncoder.build(b);
+      IUuidEncoder uuid = IUuidEncoder.build(b);
+
+      assertFalse(strict.tolerantDecoding());
+      for (int i = 0; i < 2000; i++) {
+        long id = (i < 3) ? new long[] {0, -1L, Long.MIN_VALUE}[i] : random.nextLong() >> random.nextInt(64);
+        String s = strict.encodeId(id);
+        String typed = asTyped(s, random);
+
+        for (ILongEncoder encoder : encoders) {
+          assertTrue(encoder.tolerantDecoding());
+          assertEquals(id, encoder.decodeId(s));
+          assertEquals(id, encoder.decodeId(typed), typed);
+        }
+        if (! typed.equals(s)) {
+          assertNotEquals(IEncodedId.DECODED, strict.tryDecodeId(typed, 0, typed.length(), out, 0), typed);
+        }
+        if ((int) id == id && ! b.isUnsigned()) {
+          assertEquals(id, intEncoder.decodeId(typed));
+        }
+        if (! b.isUnsigned()) {
+          assertEquals(BigInteger.valueOf(id), big.decodeId(typed));
+        }
+      }
+
+      UUID u = new UUID(random.nextLong(), random.nextLong());
+      assertEquals(u, uuid.decodeId(asTyped(uuid.encodeId(u), random)));
+    }
+  }
+
+  @Test
+  public void lookAlikeTests () {
+    IEncodedId.Builder b = getEncodedIdBuilder(URL_SAFE_32_ALPHABET, URL_SAFE_32_CHARACTER_SET).tolerantDecoding(true);
+    ILongEncoder encoder = ILongEncoder.build(b);
+    long [] out = new long[1];
+
+    // Crockford style: the alphabet has 0, 1 and V but no O, I, L or U.
+
+    assertEquals(encoder.decodeId("01V"), encoder.decodeId("OIU"));
+    assertEquals(encoder.decodeId("01V"), encoder.decodeId("oLu"));
+    assertEquals(encoder.decodeId("01V"), encoder.decodeId(" o-l u\t"));
+    assertEquals(encoder.decodeId("PVMZD"), encoder.decodeId("pvmzd"));
+
+    // The default alphabet has 1 and no I, and neither 0 nor O, so those stay invalid.
+
+    ILongEncoder byDefault = ILongEncoder.build(getEncodedIdBuilder().tolerantDecoding(true));
+
+    assertEquals(byDefault.decodeId("P1"), byDefault.decodeId("pi"));
+    assertEquals(IEncodedId.INVALID_CHARACTER, byDefault.tryDecodeId("P0", 0, 2, out, 0));
+    assertEquals(IEncodedId.INVALID_CHARACTER, byDefault.tryDecodeId("PO", 0, 2, out, 0));
+    assertEquals(IEncodedId.NO_DIGITS, byDefault.tryDecodeId(" - ", 0, 3, out, 0));
+
+    // Where both are in the alphabet, each is itself.
+
+    ILongEncoder big = ILongEncoder.build(getEncodedIdBuilder(BIG_ALPHABET, BASE_BIG_CHARACTER_SET).tolerantDecoding(true));
+
+    assertNotEquals(big.decodeId("a"), big.decodeId("A"));
+    assertNotEquals(big.decodeId("O"), big.decodeId("0"));
+  }
+
+  @Test
+  public void fixedSeparatorTests () {
+    IEncodedId.Builder [] builders = {
+        getEncodedIdBuilder().separator(true).strictSeparators(true).segmentLength(3).tolerantDecoding(true),
+        getEncodedIdBuilder().separator(true).formatTemplate("XXX-XXXX").tolerantDecoding(true)
+    };
+    long [] out = new long[1];
+
+    // Blanks and dashes would take a separator's place, so they aren't skipped; letters still fold.
+
+    for (IEncodedId.Builder b : builders) {
+      ILongEncoder encoder = ILongEncoder.build(b);
+      IIntEncoder intEncoder = IIntEncoder.build(b);
+      String s = encoder.encodeId(1234567890);
+      String lower = s.toLowerCase();
+      String spaced = s.charAt(0) + " " + s.substring(1);
+
+      assertEquals(1234567890, encoder.decodeId(lower));
+      assertEquals(1234567890, intEncoder.decodeId(lower));
+      assertNotEquals(IEncodedId.DECODED, encoder.tryDecodeId(spaced, 0, spaced.length(), out, 0));
+      assertThrows(EncodedIdException.class, () -> intEncoder.decodeId(spaced));
+    }
+  }
+
+  @Test
+  public void batchValidatorTests () {
+    IEncodedId.Builder b = getEncodedIdBuilder().checkedEncoder(true).tolerantDecoding(true);
+    ILongEncoder encoder = ILongEncoder.build(b);
+    IBatchValidator validator = IBatchValidator.build(b.vectorValidation(true));
+    IBatchValidator scalar = new BatchValidator(b);
+    Random random = new Random(20231102L);
+    String [] ids = new String[3000];
+    long [] out = new long[1];
+    BitSet expected = new BitSet();
+
+    for (int i = 0; i < ids.length; i++) {
+      String s = asTyped(encoder.encodeId(random.nextLong() >> random.nextInt(64)), random);
+      int at = random.nextInt(s.length());
+
+      ids[i] = (i % 3 == 0) ? s : s.substring(0, at) + "0oI#".charAt(random.nextInt(4)) + s.substring(at + 1);
+      if (encoder.tryDecodeId(ids[i], 0, ids[i].length(), out, 0) != IEncodedId.DECODED) {
+        expected.set(i);
+      }
+    }
+    assertFalse(expected.isEmpty());
+    assertEquals(expected, validator.validateAll(ids));
+    assertEquals(expected, scalar.validateAll(ids));
+  }
+
+  @Test
+  public void settingTests () {
+    IEncodedId.Builder b = getEncodedIdBuilder().tolerantDecoding(true);
+    ILongEncoder encoder = ILongEncoder.build(b);
+    ILongEncoder compiled = b.compileLongEncoder();
+
+    assertTrue(b.isTolerantDecoding());
+    assertNotSame(compiled, getEncodedIdBuilder().compileLongEncoder());
+    assertThrows(UnsupportedOperationException.class, () -> compiled.tolerantDecoding(false));
+
+    String typed = encoder.encodeId(987654321).toLowerCase();
+
+    encoder.tolerantDecoding(false);
+    assertThrows(EncodedIdException.class, () -> encoder.decodeId(typed));
+    encoder.tolerantDecoding(true);
+    assertEquals(987654321, encoder.decodeId(typed));
+
+    encoder.alphabet(URL_SAFE_32_ALPHABET, URL_SAFE_32_CHARACTER_SET);  // the tolerant table follows the alphabet
+    assertEquals(encoder.decodeId("D0"), encoder.decodeId("do"));
+  }
+
+  // Lower cases some letters, spells some 1s as I or i, and puts a blank or a dash here and there.
+  private static String asTyped (String s, Random random) {
+    StringBuilder sb = new StringBuilder();
+
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+
+      if (c == '1' && random.nextInt(3) == 0) {
+        c = random.nextBoolean() ? 'I' : 'i';
+      } else if (random.nextInt(3) == 0) {
+        c = Character.toLowerCase(c);
+      }
+      if (random.nextInt(8) == 0) {
+        sb.append(random.nextBoolean() ? ' ' : '-');
+      }
+      sb.append(c);
+    }
+    return sb.toString();
+  }
+}
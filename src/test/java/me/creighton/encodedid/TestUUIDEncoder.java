@@ -5,11 +5,15 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
 import java.util.UUID;
 
 import static me.creighton.encodedid.Utilities.bigIntegerToUuid;
 import static me.creighton.encodedid.Utilities.uuidToBigInteger;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TestUUIDEncoder {
 
@@ -114,6 +118,88 @@ public class TestUUIDEncoder {
 
   }
 
+  @Test
+  public void rangeDecodeTests () {
+    UUID d = UUID.randomUUID();
+    String s = encoder3.encodeId(d);
+    String path = "/documents/" + s + "/versions";
+
+    assertEquals(d, encoder3.decodeId(path, 11, 11 + s.length()));
+  }
+
+  @Test
+  public void bigIntegerEquivalenceTests () {
+    IBigIntegerEncoder bigDefault = IBigIntegerEncoder.build(IEncodedId.getEncodedIdBuilder());
+    IBigIntegerEncoder bigTight = IBigIntegerEncoder.build(IEncodedId.getTightlyEncodedIdBuilder().checkedEncoder(true));
+    Random random = new Random(20231009L);
+
+    for (int i = 0; i < 2000; i++) {
+      long msb = (i < 4) ? (i & 1) - 1 : random.nextLong() >>> random.nextInt(64);
+      long lsb = (i < 4) ? (i >> 1) - 1 : random.nextLong();
+      UUID d = new UUID(msb, lsb);
+      BigInteger b = uuidToBigInteger(d);
+
+      assertEquals(bigDefault.encodeId(b), encoder1.encodeId(d));
+      assertEquals(bigTight.encodeId(b), encoder2.encodeId(d));
+      assertEquals(d, encoder1.decodeId(encoder1.encodeId(d)));
+      assertEquals(d, encoder2.decodeId(encoder2.encodeId(d)));
+    }
+
+    // Out of range values decode the way the BigInteger route did.
+    BigInteger wide = BigInteger.ONE.shiftLeft(130).add(BigInteger.valueOf(12345));
+    assertEquals(bigIntegerToUuid(wide), encoder1.decodeId(bigDefault.encodeId(wide)));
+    assertEquals(bigIntegerToUuid(wide.negate()), encoder1.decodeId(bigDefault.encodeId(wide.negate())));
+  }
+
+  @Test
+  public void fixedWidthTests () {
+    IUuidEncoder fixed = IUuidEncoder.build(
+            IEncodedId.getEncodedIdBuilder()
+            .checkedEncoder(true)
+        );
+    fixed.fixedWidth(true);
+    int width = fixed.encodeId(new UUID(-1L, -1L)).length();
+
+    assertTrue(fixed.fixedWidth());
+    assertEquals(width, fixed.encodeId(new UUID(0L, 0L)).length());
+    for (int i = 0; i < 100; i++) {
+      UUID d = UUID.randomUUID();
+      String s = fixed.encodeId(d);
+
+      assertEquals(width, s.length());
+      assertEquals(d, fixed.decodeId(s));
+    }
+
+    // The width comes from the alphabet tables; it must be that of the largest UUID in every base.
+
+    String [][] alphabets = {{"01", "01"}, {"0123456789", "0123456789"},
+                             {EncodingConstants.URL_SAFE_32_ALPHABET, EncodingConstants.URL_SAFE_32_CHARACTER_SET},
+                             {EncodingConstants.BIG_ALPHABET, EncodingConstants.BASE_BIG_CHARACTER_SET}};
+    for (String [] a : alphabets) {
+      IUuidEncoder e = IUuidEncoder.build(IEncodedId.getEncodedIdBuilder(a[0], a[1]).fixedWidth(true));
+
+      assertEquals(e.encodeIdWithoutSeparator(new UUID(-1L, -1L)).length(), e.maxEncodedLength(), a[0]);
+      assertEquals(e.maxEncodedLength(), e.encodeId(new UUID(0L, 1L)).length(), a[0]);
+    }
+  }
+
+  @Test
+  public void byteEncodingTests () {
+    byte [] dst = new byte[encoder3.maxEncodedLength()];
+    ByteBuffer buffer = ByteBuffer.allocateDirect(encoder3.maxEncodedLength());
+
+    for (int i = 0; i < 100; i++) {
+      UUID d = UUID.randomUUID();
+      String s = encoder3.encodeId(d);
+
+      assertEquals(s, new String(dst, 0, encoder3.encodeTo(d, dst, 0), StandardCharsets.US_ASCII));
+      buffer.clear();
+      assertEquals(s.length(), encoder3.encodeTo(d, buffer));
+      assertEquals(d, encoder3.decodeId(buffer.flip()));
+    }
+    assertEquals(encoder3.encodeId(new UUID(-1L, -1L)).length(), encoder3.maxEncodedLength());
+  }
+
   private void showMessage (String msg) {
     if (SHOW) {
       System.out.printf("%s\n", msg);